@@ -80,6 +80,14 @@ public class ErrorHandler {
         return errorResponse;
     }
 
+    @ExceptionHandler
+    @ResponseStatus(HttpStatus.UNPROCESSABLE_ENTITY)
+    public ErrorResponse handleSearchLimitExceededException(SearchLimitExceededException exception) {
+        errorResponse.setParams(exception.getMessage(), "");
+        log(exception);
+        return errorResponse;
+    }
+
     @ExceptionHandler
     @ResponseStatus(HttpStatus.METHOD_NOT_ALLOWED)
     public ErrorResponse handleHttpRequestMethodNotSupportedEx(HttpRequestMethodNotSupportedException exception) {
@@ -1,21 +1,53 @@
 package ru.yandex.practicum.filmorate.controller;
 
-import lombok.RequiredArgsConstructor;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonStreamContext;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.model.BulkResult;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.LikeCommand;
 import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.storage.cache.FilmCache;
+import javax.validation.ConstraintViolation;
 import javax.validation.Valid;
+import javax.validation.Validator;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/films")
-@RequiredArgsConstructor(onConstructor__ = @Autowired)
 public class FilmController {
 
     private final FilmService service;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+    private final int bulkChunkSize;
+
+    @Autowired
+    public FilmController(FilmService service,
+                          ObjectMapper objectMapper,
+                          Validator validator,
+                          @Value("${filmorate.bulk.chunk-size:1000}") int bulkChunkSize) {
+        this.service = service;
+        this.objectMapper = objectMapper;
+        this.validator = validator;
+        this.bulkChunkSize = bulkChunkSize;
+    }
 
     @PostMapping
     @ResponseStatus(HttpStatus.CREATED)
@@ -23,6 +55,38 @@ public class FilmController {
         return service.create(film);
     }
 
+    @PostMapping(value = "/bulk", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public BulkResult addAll(InputStream body) throws IOException {
+        BulkResult result = new BulkResult();
+        try (JsonParser parser = objectMapper.createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new ValidationException("Ожидается JSON-массив фильмов");
+            }
+            JsonStreamContext array = parser.getParsingContext();
+            Map<Integer, Film> chunk = new LinkedHashMap<>();
+            int index = 0;
+            try {
+                for (; parser.nextToken() != JsonToken.END_ARRAY; index++) {
+                    Film film = readFilm(parser, array, index, result);
+                    if (film != null) {
+                        chunk.put(index, film);
+                    }
+                    if (chunk.size() == bulkChunkSize) {
+                        result.merge(service.importFilms(chunk));
+                        chunk = new LinkedHashMap<>();
+                    }
+                }
+            } catch (JsonParseException e) {
+                result.received(1);
+                result.reject(index, "Получен некорректный формат JSON: " + e.getOriginalMessage());
+            }
+            if (!chunk.isEmpty()) {
+                result.merge(service.importFilms(chunk));
+            }
+        }
+        return result;
+    }
+
     @PutMapping
     public Film updateExisting(@RequestBody @Valid Film film) {
         return service.update(film);
@@ -38,11 +102,21 @@ public class FilmController {
         return service.getById(id);
     }
 
+    @GetMapping("/cache/stats")
+    public FilmCache.Stats returnCacheStats() {
+        return service.getCacheStats();
+    }
+
     @PutMapping("/{id}/like/{userId}")
     public void addUserLike(@PathVariable("id") long filmId, @PathVariable long userId) {
         service.setLike(filmId, userId);
     }
 
+    @PostMapping("/likes/bulk")
+    public BulkResult applyLikes(@RequestBody List<LikeCommand> commands) {
+        return service.applyLikes(commands);
+    }
+
     @DeleteMapping("/{id}/like/{userId}")
     public void removeUserLike(@PathVariable("id") long filmId, @PathVariable long userId) {
         service.deleteLike(filmId, userId);
@@ -54,14 +128,20 @@ public class FilmController {
     }
 
     @GetMapping("/search")
-    public List<Film> returnFound(@RequestParam String query,
-                                  @RequestParam List<String> by) {
-        return service.searchByParams(query, by);
+    public ResponseEntity<List<Film>> returnFound(@RequestParam String query,
+                                                  @RequestParam List<String> by,
+                                                  @RequestParam(defaultValue = "index") String mode) {
+        List<Film> found = service.searchByParams(query, by, mode);
+        return ResponseEntity.ok()
+                .header("X-Search-Plan", service.explainSearch(query, mode))
+                .body(found);
     }
 
     @GetMapping("/common")
-    public List<Film> returnCommonPopular(@RequestParam(value = "userId") long userId, @RequestParam(value = "friendId") long friendId) {
-        return service.getCommonFilmPopular(userId, friendId);
+    public List<Film> returnCommonPopular(@RequestParam(value = "userId") long userId,
+                                          @RequestParam(value = "friendId") long friendId,
+                                          @RequestParam(required = false) Integer count) {
+        return service.getCommonFilmPopular(userId, friendId, count == null ? Integer.MAX_VALUE : count);
     }
 
     @GetMapping("/director/{directorId}")
@@ -74,4 +154,34 @@ public class FilmController {
         service.delete(filmId);
     }
 
+    private Film readFilm(JsonParser parser, JsonStreamContext array, int index, BulkResult result)
+            throws IOException {
+        Film film;
+        try {
+            film = objectMapper.readValue(parser, Film.class);
+        } catch (JsonMappingException e) {
+            while (parser.getParsingContext() != array) {
+                parser.nextToken();
+            }
+            result.received(1);
+            result.reject(index, e.getOriginalMessage());
+            return null;
+        }
+        if (film == null) {
+            result.received(1);
+            result.reject(index, "Пустой элемент массива");
+            return null;
+        }
+        Set<ConstraintViolation<Film>> violations = validator.validate(film);
+        if (!violations.isEmpty()) {
+            result.received(1);
+            result.reject(index, violations.stream()
+                    .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                    .sorted()
+                    .collect(Collectors.joining(", ")));
+            return null;
+        }
+        return film;
+    }
+
 }
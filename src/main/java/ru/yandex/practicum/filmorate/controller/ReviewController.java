@@ -50,12 +50,12 @@ public class ReviewController {
 
     @DeleteMapping("/{reviewId}/like/{userId}")
     public void removeLikeReview(@PathVariable long reviewId, @PathVariable long userId) {
-        service.dislikeReview(reviewId, userId);
+        service.removeLikeReview(reviewId, userId);
     }
 
     @DeleteMapping("/{reviewId}/dislike/{userId}")
     public void removeDislikeReview(@PathVariable long reviewId, @PathVariable long userId) {
-        service.likeReview(reviewId, userId);
+        service.removeDislikeReview(reviewId, userId);
     }
 
 }
@@ -1,16 +1,22 @@
 package ru.yandex.practicum.filmorate.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import ru.yandex.practicum.filmorate.model.Event;
 import ru.yandex.practicum.filmorate.model.Film;
 import ru.yandex.practicum.filmorate.model.User;
 import ru.yandex.practicum.filmorate.service.FilmService;
 import ru.yandex.practicum.filmorate.service.UserService;
+import ru.yandex.practicum.filmorate.storage.dao.EventStorage;
 import javax.validation.Valid;
 import java.util.List;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 
 @RestController
 @RequestMapping("/users")
@@ -19,6 +25,7 @@ public class UserController {
 
     private final UserService userService;
     private final FilmService filmService;
+    private final ObjectMapper objectMapper;
 
     @PostMapping
     @ResponseStatus(HttpStatus.CREATED)
@@ -61,9 +68,22 @@ public class UserController {
         return userService.getMutualFriends(id, otherId);
     }
 
+    @GetMapping("/{id}/friends/suggestions")
+    public List<User> suggestFriends(@PathVariable("id") long userId,
+                                     @RequestParam(defaultValue = "10") int count) {
+        return userService.getFriendSuggestions(userId, count);
+    }
+
+    @GetMapping("/{id}/path/{otherId}")
+    public List<User> returnFriendPath(@PathVariable("id") long userId, @PathVariable long otherId,
+                                       @RequestParam(defaultValue = "6") int maxDepth) {
+        return userService.getFriendPath(userId, otherId, maxDepth);
+    }
+
     @GetMapping("/{id}/recommendations")
-    public List<Film> recommendFilms(@PathVariable("id") long userId) {
-        return filmService.getRecommendedFilms(userId);
+    public List<Film> recommendFilms(@PathVariable("id") long userId,
+                                     @RequestParam(required = false) Integer count) {
+        return filmService.getRecommendedFilms(userId, count == null ? Integer.MAX_VALUE : count);
     }
 
     @DeleteMapping("/{id}")
@@ -71,9 +91,34 @@ public class UserController {
         userService.deleteUserById(userId);
     }
 
-    @GetMapping("/{id}/feed")
-    public List<Event> returnEvents(@PathVariable("id") long userId) {
-        return userService.getEvents(userId);
+    @GetMapping(value = "/{id}/feed", produces = MediaType.APPLICATION_JSON_VALUE)
+    public StreamingResponseBody returnEvents(@PathVariable("id") long userId,
+                                              @RequestParam(defaultValue = "0") long after,
+                                              @RequestParam(required = false) Integer limit) {
+        Supplier<Stream<Event>> page = userService.getEvents(userId, after,
+                limit == null ? Integer.MAX_VALUE : limit);
+        return outputStream -> {
+            try (Stream<Event> events = page.get();
+                 var generator = objectMapper.getFactory().createGenerator(outputStream)) {
+                generator.writeStartArray();
+                for (var iterator = events.iterator(); iterator.hasNext(); ) {
+                    generator.writeObject(iterator.next());
+                }
+                generator.writeEndArray();
+            }
+        };
+    }
+
+    @GetMapping("/{id}/feed/friends")
+    public List<Event> returnFriendsEvents(@PathVariable("id") long userId,
+                                           @RequestParam(defaultValue = "9223372036854775807") long before,
+                                           @RequestParam(defaultValue = "20") int limit) {
+        return userService.getFriendsEvents(userId, before, limit);
+    }
+
+    @GetMapping("/feed/stats")
+    public EventStorage.Stats returnEventStats() {
+        return userService.getEventStats();
     }
 
 }
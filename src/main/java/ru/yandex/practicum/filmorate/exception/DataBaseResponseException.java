@@ -6,4 +6,8 @@ public class DataBaseResponseException extends RuntimeException {
         super(message);
     }
 
+    public DataBaseResponseException(String message, Throwable cause) {
+        super(message, cause);
+    }
+
 }
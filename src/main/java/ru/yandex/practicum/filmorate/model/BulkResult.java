@@ -0,0 +1,42 @@
+package ru.yandex.practicum.filmorate.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+@Getter
+public class BulkResult {
+
+    private int received;
+    private int applied;
+    private final List<Failure> errors = new ArrayList<>();
+
+    public void received(int count) {
+        received += count;
+    }
+
+    public void applied(int count) {
+        applied += count;
+    }
+
+    public void reject(int index, String message) {
+        errors.add(new Failure(index, message));
+    }
+
+    public void merge(BulkResult other) {
+        received += other.received;
+        applied += other.applied;
+        errors.addAll(other.errors);
+        errors.sort(Comparator.comparingInt(Failure::getIndex));
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class Failure {
+        private final int index;
+        private final String message;
+    }
+
+}
@@ -30,6 +30,8 @@ public class Film implements Comparable<Film> {
     final Set<Genre> genres = new HashSet<>();
     final Set<Director> directors = new HashSet<>();
     final Set<Long> likes = new HashSet<>();
+    @JsonIgnore
+    int likeCount;
 
     @JsonIgnore
     public int getMpaId() {
@@ -37,19 +39,26 @@ public class Film implements Comparable<Film> {
     }
 
     public void addLike(long id) {
-        likes.add(id);
+        if (likes.add(id)) {
+            likeCount++;
+        }
     }
 
     public int getPopularity() {
-        return likes.size();
+        return likeCount;
     }
 
     public boolean removeLike(long id) {
-        return likes.remove(id);
+        boolean removed = likes.remove(id);
+        if (removed) {
+            likeCount--;
+        }
+        return removed;
     }
 
     public void clearLikes() {
         likes.clear();
+        likeCount = 0;
     }
 
     public void addGenre(Genre genre) {
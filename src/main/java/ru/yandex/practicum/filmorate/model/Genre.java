@@ -1,19 +1,46 @@
 package ru.yandex.practicum.filmorate.model;
 
 import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
-import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
 import ru.yandex.practicum.filmorate.serialize.GenreDeserializer;
 
 @JsonDeserialize(using = GenreDeserializer.class)
-@Data
+@Getter
+@EqualsAndHashCode
+@ToString
 public class Genre {
 
-    private int id;
-    private String name;
+    private static final Genre[] FLYWEIGHTS = new Genre[MovieGenre.values().length + 1];
+
+    static {
+        for (int id = 1; id < FLYWEIGHTS.length; id++) {
+            FLYWEIGHTS[id] = new Genre(id);
+        }
+    }
+
+    private final int id;
+    private final String name;
 
     public Genre(int id) {
+        this(id, MovieGenre.values()[id - 1].getName());
+    }
+
+    private Genre(int id, String name) {
         this.id = id;
-        this.name = MovieGenre.values()[id - 1].getName();
+        this.name = name;
+    }
+
+    public static Genre of(int id) {
+        if (id <= 0 || id >= FLYWEIGHTS.length) {
+            throw new IllegalArgumentException("Неизвестный жанр: id=" + id);
+        }
+        return FLYWEIGHTS[id];
+    }
+
+    public static Genre unresolved(int id) {
+        return new Genre(id, null);
     }
 
 }
@@ -0,0 +1,20 @@
+package ru.yandex.practicum.filmorate.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LikeCommand {
+
+    private long filmId;
+    private long userId;
+    private Operation operation;
+
+    public Like toLike() {
+        return new Like(filmId, userId);
+    }
+
+}
@@ -10,17 +10,35 @@ import ru.yandex.practicum.filmorate.serialize.MpaDeserializer;
 @EqualsAndHashCode(exclude = "name")
 public class Mpa {
 
-    private int id;
-    private String name;
+    private static final Mpa[] FLYWEIGHTS = new Mpa[MpaRating.values().length + 1];
+
+    static {
+        for (int id = 1; id < FLYWEIGHTS.length; id++) {
+            FLYWEIGHTS[id] = new Mpa(id);
+        }
+    }
+
+    private final int id;
+    private final String name;
 
     public Mpa(int id) {
-        this.id = id;
-        this.name = MpaRating.values()[id - 1].getName();
+        this(id, MpaRating.values()[id - 1].getName());
     }
 
-    public void setId(int id) {
+    private Mpa(int id, String name) {
         this.id = id;
-        this.name = MpaRating.values()[id - 1].getName();
+        this.name = name;
+    }
+
+    public static Mpa of(int id) {
+        if (id <= 0 || id >= FLYWEIGHTS.length) {
+            throw new IllegalArgumentException("Неизвестный рейтинг MPA: id=" + id);
+        }
+        return FLYWEIGHTS[id];
+    }
+
+    public static Mpa unresolved(int id) {
+        return new Mpa(id, null);
     }
 
 }
@@ -0,0 +1,6 @@
+package ru.yandex.practicum.filmorate.model;
+
+public enum SearchMode {
+    INDEX,
+    LITERAL
+}
@@ -2,7 +2,6 @@ package ru.yandex.practicum.filmorate.serialize;
 
 import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.databind.DeserializationContext;
-import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
 import ru.yandex.practicum.filmorate.model.Genre;
 import java.io.IOException;
@@ -19,9 +18,12 @@ public class GenreDeserializer extends StdDeserializer<Genre> {
 
     @Override
     public Genre deserialize(JsonParser jp, DeserializationContext ctxt) throws IOException {
-        JsonNode node = jp.getCodec().readTree(jp);
-        int id = (Integer) node.get("id").numberValue();
-        return new Genre(id);
+        int id = ReferenceIds.readId(jp, ctxt, Genre.class);
+        try {
+            return Genre.of(id);
+        } catch (IllegalArgumentException e) {
+            return Genre.unresolved(id);
+        }
     }
 
 }
@@ -2,13 +2,10 @@ package ru.yandex.practicum.filmorate.serialize;
 
 import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.databind.DeserializationContext;
-import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
-import org.springframework.stereotype.Component;
 import ru.yandex.practicum.filmorate.model.Mpa;
 import java.io.IOException;
 
-@Component
 public class MpaDeserializer extends StdDeserializer<Mpa> {
 
     public MpaDeserializer() {
@@ -21,9 +18,12 @@ public class MpaDeserializer extends StdDeserializer<Mpa> {
 
     @Override
     public Mpa deserialize(JsonParser jp, DeserializationContext ctxt) throws IOException {
-        JsonNode node = jp.getCodec().readTree(jp);
-        int id = (Integer) node.get("id").numberValue();
-        return new Mpa(id);
+        int id = ReferenceIds.readId(jp, ctxt, Mpa.class);
+        try {
+            return Mpa.of(id);
+        } catch (IllegalArgumentException e) {
+            return Mpa.unresolved(id);
+        }
     }
 
 }
@@ -0,0 +1,45 @@
+package ru.yandex.practicum.filmorate.serialize;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import java.io.IOException;
+
+final class ReferenceIds {
+
+    private static final String ID = "id";
+
+    private ReferenceIds() {
+    }
+
+    static int readId(JsonParser jp, DeserializationContext ctxt, Class<?> type) throws IOException {
+        JsonToken token = jp.currentToken();
+        if (token == JsonToken.VALUE_NUMBER_INT) {
+            return jp.getIntValue();
+        }
+        if (token == JsonToken.START_OBJECT) {
+            token = jp.nextToken();
+        }
+        int id = 0;
+        boolean found = false;
+        for (; token == JsonToken.FIELD_NAME; token = jp.nextToken()) {
+            String field = jp.currentName();
+            token = jp.nextToken();
+            if (ID.equals(field) && token == JsonToken.VALUE_NUMBER_INT) {
+                id = jp.getIntValue();
+                found = true;
+            } else {
+                jp.skipChildren();
+            }
+        }
+        if (token != JsonToken.END_OBJECT) {
+            throw ctxt.wrongTokenException(jp, type, JsonToken.END_OBJECT,
+                    "Ожидался объект с полем id для " + type.getSimpleName());
+        }
+        if (!found) {
+            return ctxt.reportInputMismatch(type, "Не указан id для %s", type.getSimpleName());
+        }
+        return id;
+    }
+
+}
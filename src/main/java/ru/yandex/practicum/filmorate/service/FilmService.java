@@ -1,6 +1,9 @@
 package ru.yandex.practicum.filmorate.service;
 
+import ru.yandex.practicum.filmorate.model.BulkResult;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.LikeCommand;
+import ru.yandex.practicum.filmorate.storage.cache.FilmCache;
 import java.util.List;
 import java.util.Map;
 
@@ -10,6 +13,8 @@ public interface FilmService {
 
     Film update(Film film);
 
+    BulkResult importFilms(Map<Integer, Film> films);
+
     List<Film> getAll();
 
     Film getById(long id);
@@ -18,16 +23,22 @@ public interface FilmService {
 
     void deleteLike(long filmId, long userId);
 
+    BulkResult applyLikes(List<LikeCommand> commands);
+
     List<Film> getPopular(Map<String, String> allParams);
 
     List<Film> getSortedFilms(int directorId, String sortBy);
 
     void delete(long filmId);
 
-    List<Film> getCommonFilmPopular(long userId, long friendId);
+    List<Film> getCommonFilmPopular(long userId, long friendId, int count);
+
+    List<Film> getRecommendedFilms(long userId, int count);
+
+    List<Film> searchByParams(String query, List<String> by, String mode);
 
-    List<Film> getRecommendedFilms(long userId);
+    String explainSearch(String query, String mode);
 
-    List<Film> searchByParams(String query, List<String> by);
+    FilmCache.Stats getCacheStats();
 
 }
@@ -20,4 +20,8 @@ public interface ReviewService {
 
     void dislikeReview(long id, long userId);
 
+    void removeLikeReview(long id, long userId);
+
+    void removeDislikeReview(long id, long userId);
+
 }
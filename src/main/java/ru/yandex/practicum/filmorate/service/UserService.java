@@ -2,7 +2,12 @@ package ru.yandex.practicum.filmorate.service;
 
 import ru.yandex.practicum.filmorate.model.Event;
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.dao.EventStorage;
+import java.util.Collection;
 import java.util.List;
+import java.util.Set;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 
 public interface UserService {
 
@@ -22,9 +27,19 @@ public interface UserService {
 
     List<User> getMutualFriends(long id, long otherId);
 
+    List<User> getFriendSuggestions(long userId, int count);
+
+    List<User> getFriendPath(long userId, long otherId, int maxDepth);
+
     boolean existsById(long userId);
 
-    List<Event> getEvents(long userId);
+    Set<Long> findExistingIds(Collection<Long> userIds);
+
+    Supplier<Stream<Event>> getEvents(long userId, long after, int limit);
+
+    List<Event> getFriendsEvents(long userId, long before, int limit);
+
+    EventStorage.Stats getEventStats();
 
     void deleteUserById(long id);
 
@@ -1,13 +1,10 @@
 package ru.yandex.practicum.filmorate.service;
 
-import ru.yandex.practicum.filmorate.exception.FilmNotFoundException;
 import ru.yandex.practicum.filmorate.exception.ValidationException;
 import ru.yandex.practicum.filmorate.model.Film;
 import ru.yandex.practicum.filmorate.model.Review;
 import ru.yandex.practicum.filmorate.model.User;
-import javax.validation.constraints.NotNull;
 import java.time.LocalDate;
-import java.util.List;
 
 import static ru.yandex.practicum.filmorate.util.Constants.FIRST_FILM;
 
@@ -63,25 +60,4 @@ public final class Validator {
             throw new ValidationException("Неверный id пользователя: " + review.getUserId());
         }
     }
-
-    @NotNull
-    public static void validateExistFilm(List<Long> filmIdList, long id) {
-        if (!filmIdList.contains(id)) {
-            throw new FilmNotFoundException(String.format("Фильм с id %s не найден", id));
-        }
-    }
-
-    @NotNull
-    public static void validateExistUser(List<Long> userIdList, long id) {
-        if (!userIdList.contains(id)) {
-            throw new FilmNotFoundException(String.format("Пользователь с id %s не найден", id));
-        }
-    }
-
-    @NotNull
-    public static void validateExistReview(List<Long> reviewIdList, long id) {
-        if (!reviewIdList.contains(id)) {
-            throw new FilmNotFoundException(String.format("Ревью с id %s не найден", id));
-        }
-    }
 }
@@ -6,7 +6,9 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import ru.yandex.practicum.filmorate.model.Director;
 import ru.yandex.practicum.filmorate.service.DirectorsService;
+import ru.yandex.practicum.filmorate.storage.cache.FilmCache;
 import ru.yandex.practicum.filmorate.storage.dao.DirectorsStorage;
+import ru.yandex.practicum.filmorate.storage.index.FilmSearchIndex;
 import java.util.List;
 
 @Service
@@ -15,6 +17,8 @@ import java.util.List;
 public class DirectorsServiceImpl implements DirectorsService {
 
     private final DirectorsStorage storage;
+    private final FilmSearchIndex searchIndex;
+    private final FilmCache filmCache;
 
     @Override
     public List<Director> getAll() {
@@ -31,19 +35,26 @@ public class DirectorsServiceImpl implements DirectorsService {
     @Override
     public Director create(Director director) {
         log.debug("Запрошено создание режиссера" + director.getId());
-        return storage.create(director);
+        Director created = storage.create(director);
+        searchIndex.putDirector(created);
+        return created;
     }
 
     @Override
     public Director update(Director director) {
         log.debug("Запрошено обновление режиссера" + director.getId());
-        return storage.update(director);
+        Director updated = storage.update(director);
+        searchIndex.putDirector(updated);
+        filmCache.invalidateAll();
+        return updated;
     }
 
     @Override
     public void delete(int id) {
         log.debug("Запрошено удаление режиссера " + id);
         storage.delete(id);
+        searchIndex.removeDirector(id);
+        filmCache.invalidateAll();
     }
 
 }
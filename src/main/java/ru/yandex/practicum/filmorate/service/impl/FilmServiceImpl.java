@@ -3,24 +3,39 @@ package ru.yandex.practicum.filmorate.service.impl;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.dao.DataAccessException;
 import org.springframework.stereotype.Service;
 import ru.yandex.practicum.filmorate.exception.DataUpdateException;
+import ru.yandex.practicum.filmorate.exception.DirectorNotFoundException;
+import ru.yandex.practicum.filmorate.exception.EntityNotFoundException;
 import ru.yandex.practicum.filmorate.exception.FilmNotFoundException;
+import ru.yandex.practicum.filmorate.exception.GenreNotFoundException;
+import ru.yandex.practicum.filmorate.exception.MpaRatingNotFoundException;
 import ru.yandex.practicum.filmorate.exception.UserNotFoundException;
 import ru.yandex.practicum.filmorate.exception.ValidationException;
 import ru.yandex.practicum.filmorate.model.*;
 import ru.yandex.practicum.filmorate.service.FilmService;
 import ru.yandex.practicum.filmorate.service.UserService;
 import ru.yandex.practicum.filmorate.storage.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.cache.FilmCache;
 import ru.yandex.practicum.filmorate.storage.dao.DirectorsStorage;
 import ru.yandex.practicum.filmorate.storage.dao.EventStorage;
 import ru.yandex.practicum.filmorate.storage.dao.FilmGenreStorage;
 import ru.yandex.practicum.filmorate.storage.dao.LikeStorage;
+import ru.yandex.practicum.filmorate.storage.index.FilmPopularityIndex;
+import ru.yandex.practicum.filmorate.storage.index.FilmRecommendationIndex;
+import ru.yandex.practicum.filmorate.storage.index.FilmSearchIndex;
+import ru.yandex.practicum.filmorate.storage.index.ReferenceDictionary;
 import static ru.yandex.practicum.filmorate.service.Validator.*;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
 import java.util.HashSet;
+import java.util.Objects;
 import java.time.Instant;
 import java.util.Comparator;
 import java.util.function.Function;
@@ -36,6 +51,11 @@ public class FilmServiceImpl implements FilmService {
     private final UserService userService;
     private final DirectorsStorage directorsStorage;
     private final EventStorage eventStorage;
+    private final FilmPopularityIndex popularityIndex;
+    private final FilmRecommendationIndex recommendationIndex;
+    private final FilmSearchIndex searchIndex;
+    private final FilmCache filmCache;
+    private final ReferenceDictionary dictionary;
 
     @Autowired
     public FilmServiceImpl(@Qualifier("filmDbStorage") FilmStorage filmStorage,
@@ -43,18 +63,29 @@ public class FilmServiceImpl implements FilmService {
                            LikeStorage likeStorage,
                            UserService userService,
                            DirectorsStorage directorsStorage,
-                           EventStorage eventStorage) {
+                           EventStorage eventStorage,
+                           FilmPopularityIndex popularityIndex,
+                           FilmRecommendationIndex recommendationIndex,
+                           FilmSearchIndex searchIndex,
+                           FilmCache filmCache,
+                           ReferenceDictionary dictionary) {
         this.filmStorage = filmStorage;
         this.filmGenreStorage = filmGenreStorage;
         this.likeStorage = likeStorage;
         this.userService = userService;
         this.directorsStorage = directorsStorage;
         this.eventStorage = eventStorage;
+        this.popularityIndex = popularityIndex;
+        this.recommendationIndex = recommendationIndex;
+        this.searchIndex = searchIndex;
+        this.filmCache = filmCache;
+        this.dictionary = dictionary;
     }
 
     @Override
     public Film create(Film film) {
         film = validateFilm(film);
+        checkReferences(film);
         if (film.getId() != 0) {
             throw new ValidationException("Недопустимый параметр ID при создании фильма");
         }
@@ -65,6 +96,8 @@ public class FilmServiceImpl implements FilmService {
         if (!film.getDirectors().isEmpty()) {
             directorsStorage.save(film);
         }
+        popularityIndex.put(film);
+        searchIndex.putFilm(film);
         log.info("Добавлен фильм: {}", film);
         return film;
     }
@@ -72,17 +105,68 @@ public class FilmServiceImpl implements FilmService {
     @Override
     public Film update(Film film) {
         film = validateFilm(film);
+        checkReferences(film);
         checkFilmExistence(film.getId());
         filmStorage.update(film);
         filmGenreStorage.deleteByFilmId(film.getId());
         filmGenreStorage.save(film);
         directorsStorage.deleteByFilmId(film.getId());
         directorsStorage.save(film);
-        film.getLikes().addAll(likeStorage.findUsersIdByFilmId(film.getId()));
+        film.clearLikes();
+        likeStorage.findUsersIdByFilmId(film.getId()).forEach(film::addLike);
+        filmCache.invalidate(film.getId());
+        popularityIndex.put(film);
+        searchIndex.putFilm(film);
         log.info("Обновлён фильм: {}", film);
         return film;
     }
 
+    @Override
+    public BulkResult importFilms(Map<Integer, Film> films) {
+        BulkResult result = new BulkResult();
+        result.received(films.size());
+        Set<Integer> directorIds = films.values()
+                .stream()
+                .filter(film -> film.getDirectors() != null)
+                .flatMap(film -> film.getDirectors().stream())
+                .map(Director::getId)
+                .collect(Collectors.toSet());
+        Set<Integer> knownDirectors = directorIds.isEmpty()
+                ? Set.of() : directorsStorage.findExistingIds(directorIds);
+        Map<Integer, Film> accepted = new LinkedHashMap<>();
+        films.forEach((index, film) -> {
+            try {
+                film = validateFilm(film);
+                checkReferences(film);
+                if (film.getId() != 0) {
+                    throw new ValidationException("Недопустимый параметр ID при создании фильма");
+                }
+                for (Director director : film.getDirectors()) {
+                    if (!knownDirectors.contains(director.getId())) {
+                        throw new DirectorNotFoundException(
+                                String.format("Режиссёр с id=%d не найден", director.getId()));
+                    }
+                }
+                accepted.put(index, film);
+            } catch (ValidationException | EntityNotFoundException e) {
+                result.reject(index, e.getMessage());
+            }
+        });
+        try {
+            filmStorage.saveAll(new ArrayList<>(accepted.values()));
+        } catch (DataAccessException e) {
+            log.warn("Не удалось добавить пакет из {} фильмов, повтор по одному: {}", accepted.size(), e.getMessage());
+            saveOneByOne(accepted, result);
+        }
+        for (Film film : accepted.values()) {
+            popularityIndex.put(film);
+            searchIndex.putFilm(film);
+        }
+        result.applied(accepted.size());
+        log.info("Импортировано фильмов: {} из {}", accepted.size(), films.size());
+        return result;
+    }
+
     @Override
     public List<Film> getAll() {
         log.debug("Запрос списка всех фильмов");
@@ -102,6 +186,9 @@ public class FilmServiceImpl implements FilmService {
         Like like = new Like(filmId, userId);
         if (!likeStorage.isExist(like)) {
             likeStorage.save(like);
+            popularityIndex.changeLikeCount(filmId, 1);
+            recommendationIndex.addLike(userId, filmId);
+            filmCache.addLike(filmId, userId);
             log.info("Пользователь: id={} поставил лайк фильму: id={}", userId, filmId);
         }
         eventStorage.save(Event.builder()
@@ -120,6 +207,9 @@ public class FilmServiceImpl implements FilmService {
         Like like = new Like(filmId, userId);
         if (likeStorage.isExist(like)) {
             likeStorage.delete(like);
+            popularityIndex.changeLikeCount(filmId, -1);
+            recommendationIndex.removeLike(userId, filmId);
+            filmCache.removeLike(filmId, userId);
             log.info("Пользователь: id={} убрал лайк фильму: id={}", userId, filmId);
             eventStorage.save(Event.builder()
                     .timestamp(Instant.now().toEpochMilli())
@@ -133,67 +223,149 @@ public class FilmServiceImpl implements FilmService {
         }
     }
 
+    @Override
+    public BulkResult applyLikes(List<LikeCommand> commands) {
+        BulkResult result = new BulkResult();
+        result.received(commands.size());
+        Set<Long> filmIds = filmStorage.findExistingIds(commands.stream()
+                .map(LikeCommand::getFilmId)
+                .collect(Collectors.toSet()));
+        Set<Long> userIds = userService.findExistingIds(commands.stream()
+                .map(LikeCommand::getUserId)
+                .collect(Collectors.toSet()));
+        Set<Like> stored = likeStorage.findExisting(commands.stream()
+                .filter(command -> filmIds.contains(command.getFilmId()) && userIds.contains(command.getUserId()))
+                .map(LikeCommand::toLike)
+                .collect(Collectors.toSet()));
+        Map<Like, Boolean> liked = new HashMap<>();
+        List<Event> events = new ArrayList<>(commands.size());
+        long timestamp = Instant.now().toEpochMilli();
+        for (int index = 0; index < commands.size(); index++) {
+            LikeCommand command = commands.get(index);
+            Like like = command.toLike();
+            if (command.getOperation() != Operation.ADD && command.getOperation() != Operation.REMOVE) {
+                result.reject(index, "Недопустимая операция с лайком: " + command.getOperation());
+                continue;
+            }
+            if (!filmIds.contains(like.getFilmId())) {
+                result.reject(index, String.format("Фильм с id=%d не найден", like.getFilmId()));
+                continue;
+            }
+            if (!userIds.contains(like.getUserId())) {
+                result.reject(index, String.format("Пользователь с id=%d не найден", like.getUserId()));
+                continue;
+            }
+            boolean exists = liked.computeIfAbsent(like, stored::contains);
+            if (command.getOperation() == Operation.REMOVE && !exists) {
+                result.reject(index, "Пользователь ранее не оставлял лайк");
+                continue;
+            }
+            liked.put(like, command.getOperation() == Operation.ADD);
+            events.add(Event.builder()
+                    .timestamp(timestamp)
+                    .eventType(EventType.LIKE)
+                    .operation(command.getOperation())
+                    .userId(like.getUserId())
+                    .entityId(like.getFilmId())
+                    .build());
+        }
+        List<Like> toSave = new ArrayList<>();
+        List<Like> toDelete = new ArrayList<>();
+        liked.forEach((like, exists) -> {
+            if (exists && !stored.contains(like)) {
+                toSave.add(like);
+            } else if (!exists && stored.contains(like)) {
+                toDelete.add(like);
+            }
+        });
+        for (Like like : likeStorage.saveAll(toSave)) {
+            popularityIndex.changeLikeCount(like.getFilmId(), 1);
+            recommendationIndex.addLike(like.getUserId(), like.getFilmId());
+            filmCache.addLike(like.getFilmId(), like.getUserId());
+        }
+        for (Like like : likeStorage.deleteAll(toDelete)) {
+            popularityIndex.changeLikeCount(like.getFilmId(), -1);
+            recommendationIndex.removeLike(like.getUserId(), like.getFilmId());
+            filmCache.removeLike(like.getFilmId(), like.getUserId());
+        }
+        eventStorage.saveAll(events);
+        result.applied(events.size());
+        log.info("Применено операций с лайками: {} из {}, добавлено {}, удалено {}",
+                events.size(), commands.size(), toSave.size(), toDelete.size());
+        return result;
+    }
+
     @Override
     public List<Film> getPopular(Map<String, String> allParams) {
         log.debug("Запрошен список самых популярных фильмов");
         int count = allParams.containsKey("count") ? parseSafely(Integer::parseInt, allParams.get("count")) : 10;
-        Set<Long> foundedIds = new HashSet<>();
-        if (!allParams.containsKey("year") && !allParams.containsKey("genreId")) {
-            foundedIds.addAll(filmStorage.findPopular(count));
-        } else if (allParams.containsKey("year") && allParams.containsKey("genreId")) {
-            int year = parseSafely(Integer::parseInt, allParams.get("year"));
-            int genreId = parseSafely(Integer::parseInt, allParams.get("genreId"));
-            foundedIds.addAll(filmStorage.findByYearAndGenre(year, genreId));
-        } else if (allParams.containsKey("year")) {
-            int year = parseSafely(Integer::parseInt, allParams.get("year"));
-            foundedIds.addAll(filmStorage.findAllByYear(year));
-        } else if (allParams.containsKey("genreId")) {
-            int genreId = parseSafely(Integer::parseInt, allParams.get("genreId"));
-            foundedIds.addAll(filmGenreStorage.findAllByGenre(genreId));
-        }
-        return filmStorage.findAllById(foundedIds)
-                .stream()
-                .sorted(Comparator.comparingInt(Film::getPopularity).reversed())
-                .limit(count)
-                .collect(Collectors.toList());
+        Integer year = allParams.containsKey("year") ? parseSafely(Integer::parseInt, allParams.get("year")) : null;
+        Integer genreId = allParams.containsKey("genreId")
+                ? parseSafely(Integer::parseInt, allParams.get("genreId")) : null;
+        if (count <= 0) {
+            throw new ValidationException("Количество популярных фильмов должно быть положительным");
+        }
+        List<Long> popularIds = popularityIndex.findTop(count, year, genreId);
+        return orderByIds(filmCache.findAllById(popularIds, filmStorage::findAllById), popularIds);
     }
 
     @Override
-    public List<Film> getRecommendedFilms(long userId) {
+    public List<Film> getRecommendedFilms(long userId, int count) {
         checkUserExistence(userId);
         log.debug("Запрошен список рекомендованных фильмов для пользователя id={}", userId);
-        return filmStorage.findAllById(likeStorage.suggestFilms(userId));
+        List<Long> recommendedIds = recommendationIndex.recommend(userId, count);
+        return orderByIds(filmCache.findAllById(recommendedIds, filmStorage::findAllById), recommendedIds);
     }
 
     @Override
-    public List<Film> searchByParams(String query, List<String> by) {
-        log.debug("Поиск подстроки: {} / параметры поиска: [{}]", query, by);
+    public List<Film> searchByParams(String query, List<String> by, String mode) {
+        log.debug("Поиск подстроки: {} / параметры поиска: [{}] / режим: {}", query, by, mode);
+        SearchMode searchMode = parseSearchMode(mode);
         Set<Long> foundedIds = new HashSet<>();
         if (by.contains("title")) {
-            foundedIds.addAll(filmStorage.findBySubString(query));
+            foundedIds.addAll(searchMode == SearchMode.LITERAL
+                    ? filmStorage.findBySubString(query)
+                    : searchIndex.findByTitle(query));
         }
         if (by.contains("director")) {
-            foundedIds.addAll(directorsStorage.findBySubString(query));
+            foundedIds.addAll(searchMode == SearchMode.LITERAL
+                    ? directorsStorage.findBySubString(query)
+                    : searchIndex.findByDirector(query));
         }
-        List<Film> foundedFilms = filmStorage.findAllById(foundedIds);
+        List<Film> foundedFilms = filmCache.findAllById(foundedIds, filmStorage::findAllById);
         foundedFilms.sort(Comparator.comparingInt(Film::getPopularity).reversed());
         return foundedFilms;
     }
 
     @Override
-    public List<Film> getCommonFilmPopular(long userId, long friendId) {
+    public FilmCache.Stats getCacheStats() {
+        return filmCache.getStats();
+    }
+
+    @Override
+    public String explainSearch(String query, String mode) {
+        if (parseSearchMode(mode) == SearchMode.LITERAL) {
+            return "literal:lower-like";
+        }
+        return "index:" + searchIndex.plan(query);
+    }
+
+    @Override
+    public List<Film> getCommonFilmPopular(long userId, long friendId, int count) {
         checkUserExistence(userId);
         checkUserExistence(friendId);
-        List<Film> commonFilms = filmStorage.findAllById(likeStorage.findCommonLikes(userId, friendId));
-        commonFilms.sort(Comparator.comparingInt(Film::getPopularity).reversed());
-        return commonFilms;
+        if (count <= 0) {
+            throw new ValidationException("Количество общих фильмов должно быть положительным");
+        }
+        List<Long> commonIds = likeStorage.findCommonLikes(userId, friendId, count);
+        return orderByIds(filmCache.findAllById(commonIds, filmStorage::findAllById), commonIds);
     }
 
     @Override
     public List<Film> getSortedFilms(int directorId, String sortBy) {
         checkDirectorExistence(directorId);
         List<Long> ids = directorsStorage.getSortedFilms(directorId);
-        List<Film> films = filmStorage.findAllById(ids);
+        List<Film> films = filmCache.findAllById(ids, filmStorage::findAllById);
         if (sortBy.equals("year")) {
             films.sort(Comparator.comparing(Film::getReleaseDate));
         } else {
@@ -209,13 +381,26 @@ public class FilmServiceImpl implements FilmService {
             throw new FilmNotFoundException(String.format("Фильм с id=%d не найден", filmId));
         }
         filmStorage.delete(filmId);
+        filmCache.invalidate(filmId);
+        popularityIndex.remove(filmId);
+        recommendationIndex.removeFilm(filmId);
+        searchIndex.removeFilm(filmId);
     }
 
     private Film getFilmOrThrow(long id) {
-        return filmStorage.findById(id).orElseThrow(() ->
+        return filmCache.findById(id, filmStorage::findById).orElseThrow(() ->
                 new FilmNotFoundException(String.format("Фильм с id=%d не найден", id)));
     }
 
+    private List<Film> orderByIds(List<Film> films, List<Long> ids) {
+        Map<Long, Film> filmsById = films.stream()
+                .collect(Collectors.toMap(Film::getId, Function.identity()));
+        return ids.stream()
+                .map(filmsById::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+
     private <T extends Number> T parseSafely(Function<String, T> parser, String source) {
         try {
             return parser.apply(source);
@@ -224,6 +409,39 @@ public class FilmServiceImpl implements FilmService {
         }
     }
 
+    private static SearchMode parseSearchMode(String mode) {
+        try {
+            return SearchMode.valueOf(mode.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new ValidationException("Неизвестный режим поиска: " + mode);
+        }
+    }
+
+    private void saveOneByOne(Map<Integer, Film> accepted, BulkResult result) {
+        for (var iterator = accepted.entrySet().iterator(); iterator.hasNext(); ) {
+            var entry = iterator.next();
+            Film film = entry.getValue();
+            film.setId(0);
+            try {
+                filmStorage.saveAll(List.of(film));
+            } catch (DataAccessException e) {
+                result.reject(entry.getKey(), "Ошибка записи фильма: " + e.getMessage());
+                iterator.remove();
+            }
+        }
+    }
+
+    private void checkReferences(Film film) {
+        if (dictionary.findMpa(film.getMpaId()).isEmpty()) {
+            throw new MpaRatingNotFoundException(String.format("Рейтинг MPA с id=%d не найден", film.getMpaId()));
+        }
+        for (Genre genre : film.getGenres()) {
+            if (dictionary.findGenre(genre.getId()).isEmpty()) {
+                throw new GenreNotFoundException(String.format("Жанр с id=%d не найден", genre.getId()));
+            }
+        }
+    }
+
     private void checkUserExistence(long userId) {
         if (!userService.existsById(userId)) {
             throw new UserNotFoundException(String.format("Пользователь с id=%d не найден", userId));
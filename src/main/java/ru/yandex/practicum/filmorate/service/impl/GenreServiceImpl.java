@@ -7,7 +7,7 @@ import org.springframework.stereotype.Service;
 import ru.yandex.practicum.filmorate.exception.GenreNotFoundException;
 import ru.yandex.practicum.filmorate.model.Genre;
 import ru.yandex.practicum.filmorate.service.GenreService;
-import ru.yandex.practicum.filmorate.storage.dao.GenreStorage;
+import ru.yandex.practicum.filmorate.storage.index.ReferenceDictionary;
 import java.util.List;
 
 @Service
@@ -15,18 +15,18 @@ import java.util.List;
 @RequiredArgsConstructor(onConstructor__ = @Autowired)
 public class GenreServiceImpl implements GenreService {
 
-    private final GenreStorage storage;
+    private final ReferenceDictionary dictionary;
 
     @Override
     public List<Genre> getAll() {
         log.debug("Запрошен список всех жанров");
-        return storage.findAll();
+        return dictionary.getGenres();
     }
 
     @Override
     public Genre getById(long id) {
         log.debug("Запрошен жанр id=" + id);
-        return storage.findById(id).orElseThrow(() -> new GenreNotFoundException(
+        return dictionary.findGenre(id).orElseThrow(() -> new GenreNotFoundException(
                 String.format("Жанр с id=%d не найден", id)
         ));
     }
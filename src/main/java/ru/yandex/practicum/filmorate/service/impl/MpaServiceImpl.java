@@ -7,7 +7,7 @@ import org.springframework.stereotype.Service;
 import ru.yandex.practicum.filmorate.exception.MpaRatingNotFoundException;
 import ru.yandex.practicum.filmorate.model.Mpa;
 import ru.yandex.practicum.filmorate.service.MpaService;
-import ru.yandex.practicum.filmorate.storage.dao.MpaStorage;
+import ru.yandex.practicum.filmorate.storage.index.ReferenceDictionary;
 import java.util.List;
 
 @Service
@@ -15,18 +15,18 @@ import java.util.List;
 @RequiredArgsConstructor(onConstructor__ = @Autowired)
 public class MpaServiceImpl implements MpaService {
 
-    private final MpaStorage storage;
+    private final ReferenceDictionary dictionary;
 
     @Override
     public List<Mpa> getAll() {
         log.debug("Запрошен список всех рейтингов MPA");
-        return storage.findAll();
+        return dictionary.getRatings();
     }
 
     @Override
     public Mpa getById(long id) {
         log.debug("Запрошена информация о рейтинге MPA id=" + id);
-        return storage.findById(id).orElseThrow(() -> new MpaRatingNotFoundException(
+        return dictionary.findMpa(id).orElseThrow(() -> new MpaRatingNotFoundException(
                 String.format("Рейтинг MPA с id=%d не найден", id)
         ));
     }
@@ -111,4 +111,20 @@ public class ReviewServiceImpl implements ReviewService {
         log.debug("Запрос на дизлайк ревью по id = " + id + " userID = " + userId);
         reviewStorage.dislikeReview(id, userId);
     }
+
+    @Override
+    public void removeLikeReview(long id, long userId) {
+        daoValidator.validateReviewDB(id);
+        daoValidator.validateUserBd(userId);
+        log.debug("Запрос на удаление лайка ревью по id = " + id + " userID = " + userId);
+        reviewStorage.removeLikeReview(id, userId);
+    }
+
+    @Override
+    public void removeDislikeReview(long id, long userId) {
+        daoValidator.validateReviewDB(id);
+        daoValidator.validateUserBd(userId);
+        log.debug("Запрос на удаление дизлайка ревью по id = " + id + " userID = " + userId);
+        reviewStorage.removeDislikeReview(id, userId);
+    }
 }
@@ -3,34 +3,69 @@ package ru.yandex.practicum.filmorate.service.impl;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 import ru.yandex.practicum.filmorate.exception.DataUpdateException;
 import ru.yandex.practicum.filmorate.exception.UserNotFoundException;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
 import ru.yandex.practicum.filmorate.model.*;
 import ru.yandex.practicum.filmorate.service.UserService;
 import ru.yandex.practicum.filmorate.storage.UserStorage;
+import ru.yandex.practicum.filmorate.storage.cache.FilmCache;
 import ru.yandex.practicum.filmorate.storage.dao.EventStorage;
 import ru.yandex.practicum.filmorate.storage.dao.FriendStorage;
+import ru.yandex.practicum.filmorate.storage.dao.LikeStorage;
+import ru.yandex.practicum.filmorate.storage.dao.ReviewStorage;
+import ru.yandex.practicum.filmorate.storage.index.FilmPopularityIndex;
+import ru.yandex.practicum.filmorate.storage.index.FilmRecommendationIndex;
+import ru.yandex.practicum.filmorate.storage.index.FriendGraph;
+import ru.yandex.practicum.filmorate.storage.index.FriendsTimelineCache;
 import static ru.yandex.practicum.filmorate.service.Validator.*;
 import java.time.Instant;
 import java.util.*;
+import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @Slf4j
 public class UserServiceImpl implements UserService {
 
+    private static final int MAX_FRIEND_PATH_DEPTH = 20;
+
     private final UserStorage userStorage;
     private final FriendStorage friendStorage;
     private final EventStorage eventStorage;
+    private final LikeStorage likeStorage;
+    private final ReviewStorage reviewStorage;
+    private final FilmPopularityIndex popularityIndex;
+    private final FilmRecommendationIndex recommendationIndex;
+    private final FriendsTimelineCache timelines;
+    private final FriendGraph friendGraph;
+    private final FilmCache filmCache;
 
     @Autowired
     public UserServiceImpl(@Qualifier("userDbStorage") UserStorage userStorage,
                            FriendStorage friendStorage,
-                           EventStorage eventStorage) {
+                           EventStorage eventStorage,
+                           LikeStorage likeStorage,
+                           ReviewStorage reviewStorage,
+                           FilmPopularityIndex popularityIndex,
+                           FilmRecommendationIndex recommendationIndex,
+                           FriendsTimelineCache timelines,
+                           FriendGraph friendGraph,
+                           FilmCache filmCache) {
         this.userStorage = userStorage;
         this.friendStorage = friendStorage;
         this.eventStorage = eventStorage;
+        this.likeStorage = likeStorage;
+        this.reviewStorage = reviewStorage;
+        this.popularityIndex = popularityIndex;
+        this.recommendationIndex = recommendationIndex;
+        this.timelines = timelines;
+        this.friendGraph = friendGraph;
+        this.filmCache = filmCache;
     }
 
     @Override
@@ -67,18 +102,29 @@ public class UserServiceImpl implements UserService {
 
     @Override
     public User addFriend(long userId, long friendId) {
-        validateId(userId);
-        validateId(friendId);
+        if (userId == friendId) {
+            throw new ValidationException("Нельзя добавить в друзья самого себя");
+        }
         Friendship friendship = new Friendship(userId, friendId);
-        if (!friendStorage.isExist(friendship)) {
-            friendStorage.save(friendship);
+        FriendshipStatus status;
+        try {
+            status = friendStorage.sendRequest(friendship).orElseThrow(() -> new DataUpdateException(
+                    friendStorage.isConfirmed(friendship)
+                            ? "Пользователи уже являются друзьями"
+                            : "Запрос на дружбу уже отправлен"));
+        } catch (DataIntegrityViolationException e) {
+            validateId(userId);
+            validateId(friendId);
+            throw e;
+        }
+        if (status == FriendshipStatus.PENDING) {
             log.info("Пользователь: id={} отправил запрос на дружбу пользователю: id={}", userId, friendId);
-        } else if (!friendStorage.isConfirmed(friendship)) {
-            friendStorage.confirm(friendship);
-            log.info("Пользователь: id={} и пользователь: id={} теперь друзья", userId, friendId);
         } else {
-            throw new DataUpdateException("Пользователи уже являются друзьями");
+            log.info("Пользователь: id={} и пользователь: id={} теперь друзья", userId, friendId);
         }
+        friendGraph.addFriend(userId, friendId, status);
+        timelines.evict(userId);
+        timelines.evict(friendId);
         eventStorage.save(Event.builder()
                 .timestamp(Instant.now().toEpochMilli())
                 .eventType(EventType.FRIEND)
@@ -96,10 +142,13 @@ public class UserServiceImpl implements UserService {
         Friendship friendship = new Friendship(userId, friendId);
         if (friendStorage.isExist(friendship)) {
             friendStorage.cancel(friendship);
+            friendGraph.removeFriendship(userId, friendId);
             log.info("Пользователь: id={} и пользователь: id={} больше не являются друзьями", userId, friendId);
         } else {
             throw new UserNotFoundException("Пользователь не является вашим другом");
         }
+        timelines.evict(userId);
+        timelines.evict(friendId);
         eventStorage.save(Event.builder()
                 .timestamp(Instant.now().toEpochMilli())
                 .eventType(EventType.FRIEND)
@@ -122,12 +171,29 @@ public class UserServiceImpl implements UserService {
         validateId(userId);
         validateId(otherId);
         log.debug("Запрос общих друзей для пользователей: id={} и id={}", userId, otherId);
-        Collection<Long> friendsId = friendStorage.findFriendsIdByUserId(userId);
-        List<Long> commonId = friendStorage.findFriendsIdByUserId(otherId)
-                .stream()
-                .filter(friendsId::contains)
-                .collect(Collectors.toList());
-        return userStorage.findAllById(commonId);
+        return userStorage.findAllById(friendGraph.findMutualFriends(userId, otherId));
+    }
+
+    @Override
+    public List<User> getFriendSuggestions(long userId, int count) {
+        validateId(userId);
+        log.debug("Запрос рекомендаций друзей для пользователя: id={}", userId);
+        List<Long> suggestedIds = friendGraph.suggestFriends(userId, count);
+        return orderByIds(userStorage.findAllById(suggestedIds), suggestedIds);
+    }
+
+    @Override
+    public List<User> getFriendPath(long userId, long otherId, int maxDepth) {
+        validateId(userId);
+        validateId(otherId);
+        if (maxDepth <= 0 || maxDepth > MAX_FRIEND_PATH_DEPTH) {
+            throw new ValidationException(String.format(
+                    "Глубина поиска цепочки друзей должна быть от 1 до %d", MAX_FRIEND_PATH_DEPTH));
+        }
+        log.debug("Запрос цепочки друзей от пользователя: id={} до пользователя: id={}, не длиннее {}",
+                userId, otherId, maxDepth);
+        List<Long> pathIds = friendGraph.findPath(userId, otherId, maxDepth);
+        return orderByIds(userStorage.findAllById(pathIds), pathIds);
     }
 
     @Override
@@ -136,18 +202,67 @@ public class UserServiceImpl implements UserService {
     }
 
     @Override
-    public List<Event> getEvents(long userId) {
+    public Set<Long> findExistingIds(Collection<Long> userIds) {
+        return userStorage.findExistingIds(userIds);
+    }
+
+    @Override
+    public Supplier<Stream<Event>> getEvents(long userId, long after, int limit) {
         if (!userStorage.existsById(userId)) {
-            throw  new UserNotFoundException(String.format("Пользователь с id=%d не найден", userId));
+            throw new UserNotFoundException(String.format("Пользователь с id=%d не найден", userId));
+        }
+        if (after < 0 || limit <= 0) {
+            throw new ValidationException("Некорректные параметры постраничного вывода событий");
+        }
+        log.debug("Запрос событий для пользователя с id={} после события {}, не более {}", userId, after, limit);
+        return () -> eventStorage.streamByUserId(userId, after, limit);
+    }
+
+    @Override
+    public List<Event> getFriendsEvents(long userId, long before, int limit) {
+        validateId(userId);
+        if (before <= 0 || limit <= 0) {
+            throw new ValidationException("Некорректные параметры постраничного вывода событий");
         }
-        log.debug("Запрос событий для пользователя с id={}", userId);
-        return eventStorage.findAllByUserId(userId);
+        if (limit > timelines.getCapacity()) {
+            throw new ValidationException(String.format("Размер страницы событий не может превышать %d",
+                    timelines.getCapacity()));
+        }
+        log.debug("Запрос событий друзей пользователя с id={} до события {}, не более {}", userId, before, limit);
+        Optional<List<Event>> cached = timelines.findPage(userId, before, limit);
+        if (cached.isPresent()) {
+            return cached.get();
+        }
+        List<Long> friendsId = friendStorage.findFriendsIdByUserId(userId);
+        if (!timelines.contains(userId)) {
+            timelines.register(userId, friendsId);
+            List<Event> latest = eventStorage.findLatestByUserIds(friendsId, Long.MAX_VALUE, timelines.getCapacity());
+            timelines.fill(userId, latest);
+            cached = timelines.findPage(userId, before, limit);
+            if (cached.isPresent()) {
+                return cached.get();
+            }
+        }
+        return eventStorage.findLatestByUserIds(friendsId, before, limit);
+    }
+
+    @Override
+    public EventStorage.Stats getEventStats() {
+        return eventStorage.getStats();
     }
 
     @Override
     public void deleteUserById(long id) {
         validateId(id);
         log.debug("Удаление пользователя: id={}", id);
+        likeStorage.deleteAllByUserId(id).forEach(filmId -> {
+            popularityIndex.changeLikeCount(filmId, -1);
+            filmCache.removeLike(filmId, id);
+        });
+        reviewStorage.deleteVotesByUserId(id);
+        timelines.evictUser(id);
+        recommendationIndex.removeUser(id);
+        friendGraph.removeUser(id);
         userStorage.deleteById(id);
     }
 
@@ -156,6 +271,15 @@ public class UserServiceImpl implements UserService {
                 .orElseThrow(() -> new UserNotFoundException(String.format("Пользователь с id=%d не найден", id)));
     }
 
+    private List<User> orderByIds(List<User> users, List<Long> ids) {
+        Map<Long, User> usersById = users.stream()
+                .collect(Collectors.toMap(User::getId, Function.identity()));
+        return ids.stream()
+                .map(usersById::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+
     private void validateId(long id) {
         if (!userStorage.existsById(id)) {
             throw new UserNotFoundException(String.format("Пользователь с id=%d не найден", id));
@@ -4,11 +4,14 @@ import ru.yandex.practicum.filmorate.model.Film;
 import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 public interface FilmStorage {
 
     Film save(Film film);
 
+    List<Film> saveAll(List<Film> films);
+
     Film update(Film film);
 
     Optional<Film> findById(long id);
@@ -19,18 +22,14 @@ public interface FilmStorage {
 
     boolean existsById(long id);
 
+    Set<Long> findExistingIds(Collection<Long> ids);
+
     void deleteAll();
 
     List<Long> findBySubString(String substring);
 
-    List<Long> findAllByYear(int year);
-
     List<Long> findAllIds();
 
     void delete(long id);
 
-    List<Long> findPopular(int count);
-
-    List<Long> findByYearAndGenre(int year, int genreId);
-
 }
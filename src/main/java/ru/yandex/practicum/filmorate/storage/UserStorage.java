@@ -4,6 +4,7 @@ import ru.yandex.practicum.filmorate.model.User;
 import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 public interface UserStorage {
 
@@ -23,4 +24,6 @@ public interface UserStorage {
 
     boolean existsById(long id);
 
+    Set<Long> findExistingIds(Collection<Long> ids);
+
 }
@@ -0,0 +1,153 @@
+package ru.yandex.practicum.filmorate.storage.cache;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.Film;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Function;
+import java.util.function.LongFunction;
+
+@Component
+public class FilmCache {
+
+    private static final int VERSION_STRIPES = 1024;
+
+    private final Cache<Long, Film> films;
+    private final AtomicLongArray versions = new AtomicLongArray(VERSION_STRIPES);
+
+    @Autowired
+    public FilmCache(@Value("${filmorate.film-cache.maximum-size:10000}") long maximumSize,
+                     @Value("${filmorate.film-cache.expire-after-write-seconds:300}") long expireAfterWriteSeconds) {
+        this.films = CacheBuilder.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWriteSeconds, TimeUnit.SECONDS)
+                .recordStats()
+                .build();
+    }
+
+    public Optional<Film> findById(long id, LongFunction<Optional<Film>> loader) {
+        Film cached = films.getIfPresent(id);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+        long version = versionOf(id);
+        Optional<Film> loaded = loader.apply(id);
+        loaded.ifPresent(film -> putIfUnchanged(film, version));
+        return loaded;
+    }
+
+    public List<Film> findAllById(Collection<Long> ids, Function<Collection<Long>, List<Film>> loader) {
+        Set<Long> missing = new LinkedHashSet<>(ids);
+        List<Film> found = new ArrayList<>(films.getAllPresent(missing).values());
+        found.forEach(film -> missing.remove(film.getId()));
+        if (!missing.isEmpty()) {
+            Map<Long, Long> loadVersions = new HashMap<>();
+            missing.forEach(id -> loadVersions.put(id, versionOf(id)));
+            for (Film film : loader.apply(new ArrayList<>(missing))) {
+                Long version = loadVersions.get(film.getId());
+                if (version != null) {
+                    putIfUnchanged(film, version);
+                }
+                found.add(film);
+            }
+        }
+        return found;
+    }
+
+    public void addLike(long filmId, long userId) {
+        bumpVersion(filmId);
+        films.asMap().computeIfPresent(filmId, (id, film) -> {
+            Film copy = copyOf(film);
+            copy.addLike(userId);
+            return copy;
+        });
+    }
+
+    public void removeLike(long filmId, long userId) {
+        bumpVersion(filmId);
+        films.asMap().computeIfPresent(filmId, (id, film) -> {
+            Film copy = copyOf(film);
+            copy.removeLike(userId);
+            return copy;
+        });
+    }
+
+    public void invalidate(long filmId) {
+        bumpVersion(filmId);
+        films.invalidate(filmId);
+    }
+
+    public void invalidateAll() {
+        for (int i = 0; i < VERSION_STRIPES; i++) {
+            versions.incrementAndGet(i);
+        }
+        films.invalidateAll();
+    }
+
+    public Stats getStats() {
+        CacheStats stats = films.stats();
+        return new Stats(films.size(), stats.hitCount(), stats.missCount(), stats.evictionCount(), stats.hitRate());
+    }
+
+    private void putIfUnchanged(Film film, long version) {
+        films.asMap().compute(film.getId(), (id, current) -> {
+            if (current != null) {
+                return current;
+            }
+            return versionOf(id) == version ? film : null;
+        });
+    }
+
+    private long versionOf(long filmId) {
+        return versions.get(stripeOf(filmId));
+    }
+
+    private void bumpVersion(long filmId) {
+        versions.incrementAndGet(stripeOf(filmId));
+    }
+
+    private static int stripeOf(long filmId) {
+        return Long.hashCode(filmId) & (VERSION_STRIPES - 1);
+    }
+
+    private static Film copyOf(Film film) {
+        Film copy = Film.builder()
+                .id(film.getId())
+                .name(film.getName())
+                .description(film.getDescription())
+                .releaseDate(film.getReleaseDate())
+                .duration(film.getDuration())
+                .mpa(film.getMpa())
+                .build();
+        film.getGenres().forEach(copy::addGenre);
+        film.getDirectors().forEach(copy::addDirector);
+        film.getLikes().forEach(copy::addLike);
+        return copy;
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class Stats {
+        private final long size;
+        private final long hits;
+        private final long misses;
+        private final long evictions;
+        private final double hitRate;
+    }
+
+}
@@ -3,33 +3,42 @@ package ru.yandex.practicum.filmorate.storage.dao;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
-import ru.yandex.practicum.filmorate.service.Validator;
-import java.util.List;
+import ru.yandex.practicum.filmorate.exception.FilmNotFoundException;
+import ru.yandex.practicum.filmorate.storage.index.KnownIdsIndex;
 
 @Repository("DAOValidator")
 @Transactional
 public class DAOValidator {
     private final JdbcTemplate jdbcTemplate;
+    private final KnownIdsIndex knownIds;
 
-    public DAOValidator(JdbcTemplate jdbcTemplate) {
+    public DAOValidator(JdbcTemplate jdbcTemplate, KnownIdsIndex knownIds) {
         this.jdbcTemplate = jdbcTemplate;
+        this.knownIds = knownIds;
     }
 
     public void validateFilmBd(Long id) {
-        String sqlFilmIdList = "SELECT FILM_ID FROM FILMS";
-        List<Long> filmIdList = jdbcTemplate.queryForList(sqlFilmIdList, Long.class);
-        Validator.validateExistFilm(filmIdList, id);
+        String sqlFilmExists = "SELECT EXISTS (SELECT 1 FROM FILMS WHERE FILM_ID = ?)";
+        if (id == null || !knownIds.mightContainFilm(id) || !exists(sqlFilmExists, id)) {
+            throw new FilmNotFoundException(String.format("Фильм с id %s не найден", id));
+        }
     }
 
     public void validateUserBd(Long id) {
-        String sqlUserIdList = "SELECT USER_ID FROM USERS";
-        List<Long> userIdList = jdbcTemplate.queryForList(sqlUserIdList, Long.class);
-        Validator.validateExistUser(userIdList, id);
+        String sqlUserExists = "SELECT EXISTS (SELECT 1 FROM USERS WHERE USER_ID = ?)";
+        if (id == null || !knownIds.mightContainUser(id) || !exists(sqlUserExists, id)) {
+            throw new FilmNotFoundException(String.format("Пользователь с id %s не найден", id));
+        }
     }
 
     public void validateReviewDB(Long id) {
-        String sqlReviewIdList = "SELECT REVIEW_ID FROM REVIEW";
-        List<Long> reviewIdList = jdbcTemplate.queryForList(sqlReviewIdList, Long.class);
-        Validator.validateExistReview(reviewIdList, id);
+        String sqlReviewExists = "SELECT EXISTS (SELECT 1 FROM REVIEW WHERE REVIEW_ID = ?)";
+        if (id == null || !knownIds.mightContainReview(id) || !exists(sqlReviewExists, id)) {
+            throw new FilmNotFoundException(String.format("Ревью с id %s не найден", id));
+        }
+    }
+
+    private boolean exists(String sqlQuery, long id) {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(sqlQuery, Boolean.class, id));
     }
 }
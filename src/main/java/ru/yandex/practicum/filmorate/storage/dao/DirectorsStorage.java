@@ -6,6 +6,7 @@ import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.function.BiConsumer;
 
 public interface DirectorsStorage {
 
@@ -21,10 +22,14 @@ public interface DirectorsStorage {
 
     Film save(Film film);
 
+    void saveAll(Collection<Film> films);
+
     List<Director> findDirectorsByFilmId(long id);
 
     Map<Long, Set<Director>> findAll(Collection<Long> ids);
 
+    void forEachByFilmIds(Collection<Long> ids, BiConsumer<Long, Director> action);
+
     void deleteByFilmId(long id);
 
     List<Long> getSortedFilms(int directorId);
@@ -33,4 +38,6 @@ public interface DirectorsStorage {
 
     boolean existsById(int directorId);
 
+    Set<Integer> findExistingIds(Collection<Integer> ids);
+
 }
@@ -1,12 +1,38 @@
 package ru.yandex.practicum.filmorate.storage.dao;
 
+import lombok.AllArgsConstructor;
+import lombok.Getter;
 import ru.yandex.practicum.filmorate.model.Event;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 public interface EventStorage {
 
+    /**
+     * В режиме ASYNC событие записывается в фоне, поэтому eventId возвращённого события может быть ещё равен 0.
+     */
     Event save(Event event);
 
+    List<Event> saveAll(List<Event> events);
+
     List<Event> findAllByUserId(long userId);
 
+    Stream<Event> streamByUserId(long userId, long afterEventId, int limit);
+
+    List<Event> findLatestByUserIds(Collection<Long> userIds, long beforeEventId, int limit);
+
+    Stats getStats();
+
+    @Getter
+    @AllArgsConstructor
+    class Stats {
+        private final int queued;
+        private final int capacity;
+        private final long written;
+        private final long batches;
+        private final long failed;
+        private final long backpressured;
+    }
+
 }
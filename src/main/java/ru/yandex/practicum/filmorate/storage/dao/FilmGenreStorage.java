@@ -7,19 +7,22 @@ import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.function.BiConsumer;
 
 public interface FilmGenreStorage {
 
     Film save(Film film);
 
+    void saveAll(Collection<Film> films);
+
     List<Genre> findGenresByFilmId(long id);
 
     void deleteByFilmId(long id);
 
     Map<Long, Set<Genre>> findAll(Collection<Long> ids);
 
-    void deleteAll();
+    void forEachByFilmIds(Collection<Long> ids, BiConsumer<Long, Genre> action);
 
-    List<Long> findAllByGenre(int genreId);
+    void deleteAll();
 
 }
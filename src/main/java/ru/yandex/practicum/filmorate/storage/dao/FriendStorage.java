@@ -1,6 +1,7 @@
 package ru.yandex.practicum.filmorate.storage.dao;
 
 import ru.yandex.practicum.filmorate.model.Friendship;
+import ru.yandex.practicum.filmorate.model.FriendshipStatus;
 import java.util.List;
 import java.util.Optional;
 
@@ -10,6 +11,8 @@ public interface FriendStorage {
 
     Optional<Friendship> find(Friendship friendship);
 
+    Optional<FriendshipStatus> sendRequest(Friendship friendship);
+
     List<Long> findFriendsIdByUserId(long id);
 
     void cancel(Friendship friendship);
@@ -5,25 +5,34 @@ import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.function.BiConsumer;
 
 public interface LikeStorage {
 
     boolean save(Like like);
 
+    List<Like> saveAll(Collection<Like> likes);
+
     List<Long> findUsersIdByFilmId(long id);
 
     Map<Long, Set<Long>> findAll(Collection<Long> ids);
 
+    void forEachByFilmIds(Collection<Long> ids, BiConsumer<Long, Long> action);
+
     boolean delete(Like like);
 
+    List<Like> deleteAll(Collection<Like> likes);
+
+    List<Long> deleteAllByUserId(long userId);
+
     boolean isExist(Like like);
 
+    Set<Like> findExisting(Collection<Like> likes);
+
     void deleteAll();
 
-    List<Long> findCommonLikes(long userId, long friendId);
+    List<Long> findCommonLikes(long userId, long friendId, int count);
 
     List<Long> findPopular(int count);
 
-    List<Long> suggestFilms(long userId);
-
 }
@@ -19,6 +19,12 @@ public interface ReviewStorage {
 
     void dislikeReview(Long id, Long userId);
 
+    void removeLikeReview(Long id, Long userId);
+
+    void removeDislikeReview(Long id, Long userId);
+
+    void deleteVotesByUserId(long userId);
+
     Optional<Long> findUserIdByReviewId(long id);
 
 }
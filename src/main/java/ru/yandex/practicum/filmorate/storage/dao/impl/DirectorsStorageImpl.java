@@ -1,5 +1,6 @@
 package ru.yandex.practicum.filmorate.storage.dao.impl;
 
+import com.google.common.collect.Iterables;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.dao.EmptyResultDataAccessException;
 import org.springframework.jdbc.core.JdbcTemplate;
@@ -16,8 +17,10 @@ import ru.yandex.practicum.filmorate.model.Director;
 import ru.yandex.practicum.filmorate.model.Film;
 import ru.yandex.practicum.filmorate.storage.dao.DirectorsStorage;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.function.BiConsumer;
 import static ru.yandex.practicum.filmorate.util.RowMappers.DIRECTOR_ROW_MAPPER;
+import static ru.yandex.practicum.filmorate.util.Statements.containsPattern;
+import static ru.yandex.practicum.filmorate.util.Statements.IN_CLAUSE_BATCH_SIZE;
 
 @Repository
 @Transactional
@@ -56,6 +59,7 @@ public class DirectorsStorageImpl implements DirectorsStorage {
         }
         SimpleJdbcInsert simpleJdbcInsert = new SimpleJdbcInsert(jdbcTemplate)
                 .withTableName("directors")
+                .usingColumns("name")
                 .usingGeneratedKeyColumns("id");
         director.setId(simpleJdbcInsert.executeAndReturnKey(buildDirector(director)).intValue());
         return director;
@@ -83,47 +87,48 @@ public class DirectorsStorageImpl implements DirectorsStorage {
 
     @Override
     public Film save(Film film) {
+        saveAll(List.of(film));
+        return film;
+    }
+
+    @Override
+    public void saveAll(Collection<Film> films) {
         String sql = "INSERT INTO film_directors (film_id, director_id) VALUES (:film_id, :director_id)";
-        SqlParameterSource[] batch = film.getDirectors()
-                .stream()
-                .map(Director::getId)
-                .map(directorId -> new MapSqlParameterSource()
-                        .addValue("film_id", film.getId())
-                        .addValue("director_id", directorId))
+        SqlParameterSource[] batch = films.stream()
+                .flatMap(film -> film.getDirectors()
+                        .stream()
+                        .map(director -> new MapSqlParameterSource()
+                                .addValue("film_id", film.getId())
+                                .addValue("director_id", director.getId())))
                 .toArray(SqlParameterSource[]::new);
-        namedParameterJdbcTemplate.batchUpdate(sql, batch);
-        return film;
+        if (batch.length > 0) {
+            namedParameterJdbcTemplate.batchUpdate(sql, batch);
+        }
     }
 
     @Override
     public List<Director> findDirectorsByFilmId(long id) {
-        List<Integer> directorsId = new ArrayList<>();
-        String sql = "SELECT director_id FROM film_directors WHERE film_id = ?";
-        SqlRowSet rows = jdbcTemplate.queryForRowSet(sql, id);
-        while (rows.next()) {
-            directorsId.add(rows.getInt("director_id"));
-        }
-        SqlParameterSource parameters = new MapSqlParameterSource("ids", directorsId);
-        return namedParameterJdbcTemplate.queryForStream(
-                "SELECT id, name FROM directors WHERE id IN (:ids)",
-                parameters,
-                (rs, rowNum) -> new Director(rs.getInt("id"), rs.getString("name"))).collect(Collectors.toList());
+        String sql = "SELECT id, name FROM directors " +
+                "INNER JOIN film_directors ON film_directors.director_id = directors.id WHERE film_id = ?";
+        return jdbcTemplate.query(sql, DIRECTOR_ROW_MAPPER, id);
     }
 
     @Override
     public Map<Long, Set<Director>> findAll(Collection<Long> ids) {
+        Map<Long, Set<Director>> filmDirectors = new HashMap<>();
+        forEachByFilmIds(ids, (filmId, director) ->
+                filmDirectors.computeIfAbsent(filmId, key -> new HashSet<>()).add(director));
+        return filmDirectors;
+    }
+
+    @Override
+    public void forEachByFilmIds(Collection<Long> ids, BiConsumer<Long, Director> action) {
         String sql = "SELECT film_id, director_id, name FROM film_directors " +
                 "INNER JOIN directors on film_directors.director_id = directors.id WHERE film_id IN (:ids)";
         var idParams = new MapSqlParameterSource("ids", ids);
-        return namedParameterJdbcTemplate.queryForStream(sql, idParams, (rs, rowNum) ->
-                        Map.entry(rs.getLong("film_id"),
-                                new Director(rs.getInt("director_id"), rs.getString("name"))))
-                .collect(Collectors.groupingBy(
-                        Map.Entry::getKey,
-                        Collectors.mapping(
-                                Map.Entry::getValue,
-                                Collectors.toSet()
-                        )));
+        namedParameterJdbcTemplate.query(sql, idParams, rs -> {
+            action.accept(rs.getLong("film_id"), new Director(rs.getInt("director_id"), rs.getString("name")));
+        });
     }
 
     @Override
@@ -136,8 +141,8 @@ public class DirectorsStorageImpl implements DirectorsStorage {
     public List<Long> findBySubString(String substring) {
         var sqlQuery = "SELECT DISTINCT film_id FROM film_directors " +
                 "INNER JOIN directors ON directors.id = film_directors.director_id " +
-                "WHERE name ~* ?";
-        return jdbcTemplate.queryForList(sqlQuery, Long.class, substring);
+                "WHERE name_lower LIKE ? ESCAPE '\\'";
+        return jdbcTemplate.queryForList(sqlQuery, Long.class, containsPattern(substring));
     }
 
     @Override
@@ -147,6 +152,17 @@ public class DirectorsStorageImpl implements DirectorsStorage {
         return rowSet.next();
     }
 
+    @Override
+    public Set<Integer> findExistingIds(Collection<Integer> ids) {
+        var sqlQuery = "SELECT id FROM directors WHERE id IN (:ids)";
+        Set<Integer> existing = new HashSet<>();
+        for (List<Integer> batch : Iterables.partition(new LinkedHashSet<>(ids), IN_CLAUSE_BATCH_SIZE)) {
+            existing.addAll(namedParameterJdbcTemplate.queryForList(sqlQuery,
+                    new MapSqlParameterSource("ids", batch), Integer.class));
+        }
+        return existing;
+    }
+
     public Map<String, Object> buildDirector(Director director) {
         Map<String, Object> values = new HashMap<>();
         values.put("name", director.getName());
@@ -154,13 +170,8 @@ public class DirectorsStorageImpl implements DirectorsStorage {
     }
 
     public List<Long> getSortedFilms(int directorId) {
-        List<Long> ids = new ArrayList<>();
         String sql = "SELECT film_id FROM film_directors WHERE director_id = ?";
-        SqlRowSet rows = jdbcTemplate.queryForRowSet(sql, directorId);
-        while (rows.next()) {
-            ids.add((long) rows.getInt("film_id"));
-        }
-        return ids;
+        return jdbcTemplate.queryForList(sql, Long.class, directorId);
     }
 
     public void deleteAll() {
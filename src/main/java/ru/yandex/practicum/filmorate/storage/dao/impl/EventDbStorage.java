@@ -1,50 +1,350 @@
 package ru.yandex.practicum.filmorate.storage.dao.impl;
 
+import com.google.common.collect.Iterables;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
 import org.springframework.jdbc.core.JdbcTemplate;
-import org.springframework.jdbc.core.namedparam.BeanPropertySqlParameterSource;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
-import org.springframework.jdbc.support.GeneratedKeyHolder;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import ru.yandex.practicum.filmorate.exception.DataBaseResponseException;
 import ru.yandex.practicum.filmorate.model.Event;
 import ru.yandex.practicum.filmorate.storage.dao.EventStorage;
+import ru.yandex.practicum.filmorate.storage.index.FriendsTimelineCache;
+import javax.annotation.PreDestroy;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
 import static ru.yandex.practicum.filmorate.util.RowMappers.EVENT_ROW_MAPPER;
+import static ru.yandex.practicum.filmorate.util.Statements.IN_CLAUSE_BATCH_SIZE;
 
+@Slf4j
 @Repository("eventDbStorage")
 @Transactional
 public class EventDbStorage implements EventStorage {
 
+    private static final String INSERT_EVENT = "INSERT INTO events " +
+            "(timestamp, user_id, entity_id, event_type, operation) VALUES (?, ?, ?, ?, ?)";
+
     private final JdbcTemplate jdbcTemplate;
     private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+    private final FriendsTimelineCache timelines;
+    private final Durability durability;
+    private final int batchSize;
+    private final BlockingQueue<PendingEvent> queue;
+    private final ScheduledExecutorService writer;
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong backpressured = new AtomicLong();
 
-    public EventDbStorage(@Autowired JdbcTemplate jdbcTemplate) {
+    @Autowired
+    public EventDbStorage(JdbcTemplate jdbcTemplate,
+                          FriendsTimelineCache timelines,
+                          @Value("${filmorate.events.durability:ASYNC}") Durability durability,
+                          @Value("${filmorate.events.queue-capacity:10000}") int queueCapacity,
+                          @Value("${filmorate.events.batch-size:500}") int batchSize,
+                          @Value("${filmorate.events.flush-interval-ms:50}") long flushIntervalMs) {
         this.jdbcTemplate = jdbcTemplate;
         this.namedParameterJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+        this.timelines = timelines;
+        this.durability = durability;
+        this.batchSize = batchSize;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.writer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "event-writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        writer.scheduleWithFixedDelay(this::drainQuietly, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
     }
 
     @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public Event save(Event event) {
-        var sqlQuery = "INSERT INTO events (timestamp, user_id, entity_id, event_type, operation) " +
-                "VALUES (:timestamp, :userId, :entityId, :eventType, :operation)";
-        var keyHolder = new GeneratedKeyHolder();
-        var eventParams = new BeanPropertySqlParameterSource(event);
-        namedParameterJdbcTemplate.update(sqlQuery, eventParams, keyHolder);
-        event.setEventId(keyHolder.getKey().longValue());
+        var pending = enqueue(event);
+        boolean flushNow = durability == Durability.FLUSH || queue.size() >= batchSize;
+        if (flushNow) {
+            scheduleDrain();
+        }
+        if (writer.isShutdown()) {
+            flush();
+        }
+        if (durability == Durability.FLUSH) {
+            awaitWritten(pending);
+        }
         return event;
     }
 
     @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public List<Event> saveAll(List<Event> events) {
+        List<PendingEvent> pending = new ArrayList<>(events.size());
+        events.forEach(event -> pending.add(enqueue(event)));
+        if (!pending.isEmpty()) {
+            scheduleDrain();
+        }
+        if (writer.isShutdown()) {
+            flush();
+        }
+        if (durability == Durability.FLUSH) {
+            pending.forEach(this::awaitWritten);
+        }
+        return events;
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public List<Event> findAllByUserId(long userId) {
+        flush();
         var sqlQuery = "SELECT event_id, timestamp, user_id, entity_id, event_type, operation " +
                 "FROM events WHERE user_id = ? ORDER BY event_id";
         return jdbcTemplate.query(sqlQuery, EVENT_ROW_MAPPER, userId);
     }
 
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public Stream<Event> streamByUserId(long userId, long afterEventId, int limit) {
+        flush();
+        var sqlQuery = "SELECT event_id, timestamp, user_id, entity_id, event_type, operation " +
+                "FROM events WHERE user_id = ? AND event_id > ? ORDER BY event_id LIMIT ?";
+        return jdbcTemplate.queryForStream(sqlQuery, EVENT_ROW_MAPPER, userId, afterEventId, limit);
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public List<Event> findLatestByUserIds(Collection<Long> userIds, long beforeEventId, int limit) {
+        flush();
+        var sqlQuery = "SELECT event_id, timestamp, user_id, entity_id, event_type, operation FROM " +
+                "(SELECT event_id, timestamp, user_id, entity_id, event_type, operation, " +
+                "ROW_NUMBER() OVER (PARTITION BY user_id ORDER BY event_id DESC) AS position " +
+                "FROM events WHERE user_id IN (:ids) AND event_id < :before) AS latest " +
+                "WHERE position <= :limit ORDER BY user_id, event_id DESC";
+        Map<Long, Deque<Event>> streams = new LinkedHashMap<>();
+        for (List<Long> batch : Iterables.partition(userIds, IN_CLAUSE_BATCH_SIZE)) {
+            var params = new MapSqlParameterSource("ids", batch)
+                    .addValue("before", beforeEventId)
+                    .addValue("limit", limit);
+            namedParameterJdbcTemplate.query(sqlQuery, params, rs -> {
+                Event event = EVENT_ROW_MAPPER.mapRow(rs, 0);
+                streams.computeIfAbsent(event.getUserId(), id -> new ArrayDeque<>()).addLast(event);
+            });
+        }
+        return mergeNewestFirst(streams.values(), limit);
+    }
+
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public void deleteAll() {
+        flush();
         var sqlQuery = "DELETE FROM events";
         jdbcTemplate.update(sqlQuery);
     }
 
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void flush() {
+        try {
+            CompletableFuture.runAsync(this::drain, writer).join();
+        } catch (RejectedExecutionException e) {
+            drain();
+        } catch (CompletionException e) {
+            throw unwrap(e);
+        }
+    }
+
+    @Override
+    public Stats getStats() {
+        return new Stats(queue.size(), queue.size() + queue.remainingCapacity(), written.get(), batches.get(),
+                failed.get(), backpressured.get());
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        writer.shutdown();
+        writer.awaitTermination(1, TimeUnit.SECONDS);
+        drainQuietly();
+    }
+
+    private static List<Event> mergeNewestFirst(Collection<Deque<Event>> streams, int limit) {
+        PriorityQueue<Deque<Event>> heads = new PriorityQueue<>(Math.max(1, streams.size()),
+                Comparator.comparingLong((Deque<Event> stream) -> stream.peekFirst().getEventId()).reversed());
+        heads.addAll(streams);
+        int fetched = streams.stream().mapToInt(Deque::size).sum();
+        List<Event> merged = new ArrayList<>(Math.min(limit, fetched));
+        while (merged.size() < limit && !heads.isEmpty()) {
+            Deque<Event> stream = heads.poll();
+            merged.add(stream.pollFirst());
+            if (!stream.isEmpty()) {
+                heads.add(stream);
+            }
+        }
+        return merged;
+    }
+
+    private PendingEvent enqueue(Event event) {
+        var pending = new PendingEvent(event, new CompletableFuture<>());
+        while (!queue.offer(pending)) {
+            backpressured.incrementAndGet();
+            log.debug("Очередь событий заполнена, ожидание записи");
+            flush();
+        }
+        return pending;
+    }
+
+    private void awaitWritten(PendingEvent pending) {
+        try {
+            pending.getWritten().join();
+        } catch (CompletionException e) {
+            throw unwrap(e);
+        }
+    }
+
+    private static RuntimeException unwrap(CompletionException e) {
+        Throwable cause = e.getCause();
+        if (cause instanceof RuntimeException) {
+            return (RuntimeException) cause;
+        }
+        return new DataBaseResponseException("Не удалось записать события", cause);
+    }
+
+    private void scheduleDrain() {
+        if (flushScheduled.compareAndSet(false, true)) {
+            try {
+                writer.execute(this::drainQuietly);
+            } catch (RejectedExecutionException e) {
+                flushScheduled.set(false);
+            }
+        }
+    }
+
+    private void drain() {
+        flushScheduled.set(false);
+        List<PendingEvent> batch = new ArrayList<>(batchSize);
+        while (queue.drainTo(batch, batchSize) > 0) {
+            try {
+                write(batch);
+            } catch (RuntimeException | Error e) {
+                batch.forEach(pending -> {
+                    if (pending.getWritten().completeExceptionally(e)) {
+                        failed.incrementAndGet();
+                    }
+                });
+                throw e;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void drainQuietly() {
+        try {
+            drain();
+        } catch (RuntimeException e) {
+            log.error("Не удалось записать события", e);
+        }
+    }
+
+    private void write(List<PendingEvent> batch) {
+        try {
+            insert(batch);
+            batch.forEach(pending -> {
+                publish(pending.getEvent());
+                pending.getWritten().complete(null);
+            });
+            return;
+        } catch (DataAccessException e) {
+            if (batch.size() == 1) {
+                failed.incrementAndGet();
+                log.warn("Событие {} не записано: {}", batch.get(0).getEvent(), e.getMessage());
+                batch.get(0).getWritten().completeExceptionally(e);
+                return;
+            }
+        }
+        for (PendingEvent pending : batch) {
+            write(Collections.singletonList(pending));
+        }
+    }
+
+    private void publish(Event event) {
+        try {
+            timelines.publish(event);
+        } catch (RuntimeException e) {
+            log.warn("Событие {} не добавлено в ленты друзей: {}", event, e.getMessage());
+            timelines.evictUser(event.getUserId());
+        }
+    }
+
+    private void insert(List<PendingEvent> batch) {
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try (var statement = connection.prepareStatement(INSERT_EVENT, new String[]{"event_id"})) {
+                for (PendingEvent pending : batch) {
+                    Event event = pending.getEvent();
+                    statement.setLong(1, event.getTimestamp());
+                    statement.setLong(2, event.getUserId());
+                    statement.setLong(3, event.getEntityId());
+                    statement.setString(4, event.getEventType());
+                    statement.setString(5, event.getOperation());
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+                try (var keys = statement.getGeneratedKeys()) {
+                    for (PendingEvent pending : batch) {
+                        if (keys.next()) {
+                            pending.getEvent().setEventId(keys.getLong(1));
+                        }
+                    }
+                }
+                connection.commit();
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(autoCommit);
+            }
+            return null;
+        });
+        written.addAndGet(batch.size());
+        batches.incrementAndGet();
+    }
+
+    public enum Durability {
+        ASYNC,
+        FLUSH
+    }
+
+    @Getter
+    @AllArgsConstructor
+    private static class PendingEvent {
+        private final Event event;
+        private final CompletableFuture<Void> written;
+    }
+
 }
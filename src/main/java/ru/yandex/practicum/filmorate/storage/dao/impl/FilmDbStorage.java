@@ -1,20 +1,28 @@
 package ru.yandex.practicum.filmorate.storage.dao.impl;
 
+import com.google.common.collect.Iterables;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.ConnectionCallback;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.jdbc.core.namedparam.BeanPropertySqlParameterSource;
 import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import org.springframework.jdbc.support.GeneratedKeyHolder;
-import org.springframework.jdbc.support.rowset.SqlRowSet;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
-import ru.yandex.practicum.filmorate.model.Director;
 import ru.yandex.practicum.filmorate.model.Film;
-import ru.yandex.practicum.filmorate.model.Genre;
-import ru.yandex.practicum.filmorate.model.Mpa;
 import ru.yandex.practicum.filmorate.storage.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.dao.DirectorsStorage;
+import ru.yandex.practicum.filmorate.storage.dao.FilmGenreStorage;
+import ru.yandex.practicum.filmorate.storage.dao.LikeStorage;
+import ru.yandex.practicum.filmorate.storage.index.KnownIdsIndex;
+import java.sql.Date;
+import java.sql.SQLException;
 import java.util.*;
+import static ru.yandex.practicum.filmorate.util.RowMappers.FILM_ROW_MAPPER;
+import static ru.yandex.practicum.filmorate.util.Statements.containsPattern;
+import static ru.yandex.practicum.filmorate.util.Statements.IN_CLAUSE_BATCH_SIZE;
 import static ru.yandex.practicum.filmorate.util.Statements.STATEMENT_FOR_FILM;
 
 @Repository("filmDbStorage")
@@ -23,10 +31,23 @@ public class FilmDbStorage implements FilmStorage {
 
     private final JdbcTemplate jdbcTemplate;
     private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
-
-    public FilmDbStorage(@Autowired JdbcTemplate jdbcTemplate) {
+    private final FilmGenreStorage filmGenreStorage;
+    private final DirectorsStorage directorsStorage;
+    private final LikeStorage likeStorage;
+    private final KnownIdsIndex knownIds;
+
+    @Autowired
+    public FilmDbStorage(JdbcTemplate jdbcTemplate,
+                         FilmGenreStorage filmGenreStorage,
+                         DirectorsStorage directorsStorage,
+                         LikeStorage likeStorage,
+                         KnownIdsIndex knownIds) {
         this.jdbcTemplate = jdbcTemplate;
         this.namedParameterJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+        this.filmGenreStorage = filmGenreStorage;
+        this.directorsStorage = directorsStorage;
+        this.likeStorage = likeStorage;
+        this.knownIds = knownIds;
     }
 
     @Override
@@ -37,9 +58,44 @@ public class FilmDbStorage implements FilmStorage {
         var keyHolder = new GeneratedKeyHolder();
         namedParameterJdbcTemplate.update(sqlQuery, filmParams, keyHolder);
         film.setId(keyHolder.getKey().longValue());
+        knownIds.addFilm(film.getId());
         return film;
     }
 
+    @Override
+    public List<Film> saveAll(List<Film> films) {
+        if (films.isEmpty()) {
+            return films;
+        }
+        var sqlQuery = "INSERT INTO films (name, description, release_date, duration, mpa_id) VALUES (?, ?, ?, ?, ?)";
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            try (var statement = connection.prepareStatement(sqlQuery, new String[]{"film_id"})) {
+                for (Film film : films) {
+                    statement.setString(1, film.getName());
+                    statement.setString(2, film.getDescription());
+                    statement.setDate(3, Date.valueOf(film.getReleaseDate()));
+                    statement.setInt(4, film.getDuration());
+                    statement.setInt(5, film.getMpaId());
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+                try (var keys = statement.getGeneratedKeys()) {
+                    for (Film film : films) {
+                        if (!keys.next()) {
+                            throw new SQLException("Не получены идентификаторы добавленных фильмов");
+                        }
+                        film.setId(keys.getLong(1));
+                    }
+                }
+            }
+            return null;
+        });
+        filmGenreStorage.saveAll(films);
+        directorsStorage.saveAll(films);
+        films.forEach(film -> knownIds.addFilm(film.getId()));
+        return films;
+    }
+
     @Override
     public Film update(Film film) {
         var sqlQuery = "UPDATE films SET name = :name, description = :description, release_date = :releaseDate, " +
@@ -51,31 +107,54 @@ public class FilmDbStorage implements FilmStorage {
 
     @Override
     public Optional<Film> findById(long id) {
-        var sqlQuery = STATEMENT_FOR_FILM + " WHERE films.film_id = ?";
-        var rowSet = jdbcTemplate.queryForRowSet(sqlQuery, id);
-        Film film = mapToFilm(rowSet);
-        return Optional.ofNullable(film);
+        var sqlQuery = STATEMENT_FOR_FILM + " WHERE film_id = ?";
+        Map<Long, Film> films = new LinkedHashMap<>();
+        jdbcTemplate.query(sqlQuery, collectTo(films), id);
+        return hydrate(films).stream().findFirst();
     }
 
     @Override
     public List<Film> findAll() {
-        var rowSet = jdbcTemplate.queryForRowSet(STATEMENT_FOR_FILM);
-        return mapToFilmList(rowSet);
+        var sqlQuery = STATEMENT_FOR_FILM + " ORDER BY film_id";
+        Map<Long, Film> films = new LinkedHashMap<>();
+        jdbcTemplate.query(sqlQuery, collectTo(films));
+        return hydrate(films);
     }
 
     @Override
     public List<Film> findAllById(Collection<Long> ids) {
-        var sqlQuery = STATEMENT_FOR_FILM + " WHERE films.film_id IN (:ids)";
-        var idsParams = new MapSqlParameterSource("ids", ids);
-        var rowSet = namedParameterJdbcTemplate.queryForRowSet(sqlQuery, idsParams);
-        return mapToFilmList(rowSet);
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        var sqlQuery = STATEMENT_FOR_FILM + " WHERE film_id IN (:ids)";
+        Map<Long, Film> films = new LinkedHashMap<>();
+        for (List<Long> batch : Iterables.partition(new LinkedHashSet<>(ids), IN_CLAUSE_BATCH_SIZE)) {
+            var idsParams = new MapSqlParameterSource("ids", batch);
+            namedParameterJdbcTemplate.query(sqlQuery, idsParams, collectTo(films));
+        }
+        return hydrate(films);
     }
 
     @Override
     public boolean existsById(long id) {
-        var sqlQuery = "SELECT film_id FROM films WHERE film_id = ?";
-        SqlRowSet rowSet = jdbcTemplate.queryForRowSet(sqlQuery, id);
-        return rowSet.next();
+        if (!knownIds.mightContainFilm(id)) {
+            return false;
+        }
+        var sqlQuery = "SELECT EXISTS (SELECT 1 FROM films WHERE film_id = ?)";
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(sqlQuery, Boolean.class, id));
+    }
+
+    @Override
+    public Set<Long> findExistingIds(Collection<Long> ids) {
+        var sqlQuery = "SELECT film_id FROM films WHERE film_id IN (:ids)";
+        Set<Long> existing = new HashSet<>();
+        Set<Long> candidates = new LinkedHashSet<>();
+        ids.stream().filter(knownIds::mightContainFilm).forEach(candidates::add);
+        for (List<Long> batch : Iterables.partition(candidates, IN_CLAUSE_BATCH_SIZE)) {
+            var idsParams = new MapSqlParameterSource("ids", batch);
+            existing.addAll(namedParameterJdbcTemplate.queryForList(sqlQuery, idsParams, Long.class));
+        }
+        return existing;
     }
 
     @Override
@@ -86,17 +165,11 @@ public class FilmDbStorage implements FilmStorage {
 
     @Override
     public List<Long> findBySubString(String substring) {
-        var sqlQuery = "SELECT film_id FROM films WHERE (name ~* :substring)";
-        var param = new MapSqlParameterSource("substring", substring);
+        var sqlQuery = "SELECT film_id FROM films WHERE name_lower LIKE :pattern ESCAPE '\\'";
+        var param = new MapSqlParameterSource("pattern", containsPattern(substring));
         return namedParameterJdbcTemplate.queryForList(sqlQuery, param, Long.class);
     }
 
-    @Override
-    public List<Long> findAllByYear(int year) {
-        var sqlQuery = "SELECT film_id FROM films WHERE EXTRACT(YEAR FROM release_date) = ?";
-        return jdbcTemplate.queryForList(sqlQuery, Long.class, year);
-    }
-
     @Override
     public List<Long> findAllIds() {
         var sqlQuery = "SELECT film_id FROM films";
@@ -109,66 +182,20 @@ public class FilmDbStorage implements FilmStorage {
         jdbcTemplate.update(sqlQuery, filmId);
     }
 
-    @Override
-    public List<Long> findPopular(int count) {
-        var sqlQuery = "SELECT films.film_id FROM films LEFT JOIN likes ON likes.film_id = films.film_id " +
-                "GROUP BY films.film_id ORDER BY COUNT(likes.user_id) DESC LIMIT ?";
-        return jdbcTemplate.queryForList(sqlQuery, Long.class, count);
-    }
-
-    @Override
-    public List<Long> findByYearAndGenre(int year, int genreId) {
-        var sqlQuery = "SELECT films.film_id FROM films INNER JOIN film_genre ON film_genre.film_id = films.film_id " +
-                "WHERE EXTRACT(YEAR FROM films.release_date) = :year AND film_genre.genre_id = :genreId";
-        var paramsSource = new MapSqlParameterSource()
-                .addValue("year", year)
-                .addValue("genreId", genreId);
-        return namedParameterJdbcTemplate.queryForList(sqlQuery, paramsSource, Long.class);
+    private RowCallbackHandler collectTo(Map<Long, Film> films) {
+        return rs -> {
+            Film film = FILM_ROW_MAPPER.mapRow(rs, rs.getRow());
+            films.put(film.getId(), film);
+        };
     }
 
-    private List<Film> mapToFilmList(SqlRowSet rs) {
-        List<Film> films = new ArrayList<>();
-        Film currentFilm = null;
-        while (rs.next()) {
-            rs.previous();
-            currentFilm = mapToFilm(rs);
-            films.add(currentFilm);
+    private List<Film> hydrate(Map<Long, Film> films) {
+        for (List<Long> batch : Iterables.partition(films.keySet(), IN_CLAUSE_BATCH_SIZE)) {
+            filmGenreStorage.forEachByFilmIds(batch, (filmId, genre) -> films.get(filmId).addGenre(genre));
+            directorsStorage.forEachByFilmIds(batch, (filmId, director) -> films.get(filmId).addDirector(director));
+            likeStorage.forEachByFilmIds(batch, (filmId, userId) -> films.get(filmId).getLikes().add(userId));
         }
-        return  films;
-    }
-
-    private Film mapToFilm(SqlRowSet rs) {
-        Film film = null;
-        if (rs.next()) {
-            film = Film.builder()
-                    .id(rs.getLong("film_id"))
-                    .name(rs.getString("name"))
-                    .description(rs.getString("description"))
-                    .releaseDate(rs.getDate("release_date").toLocalDate())
-                    .duration(rs.getInt("duration"))
-                    .mpa(new Mpa(rs.getInt("mpa_id")))
-                    .build();
-            rs.previous();
-        } else {
-            return null;
-        }
-        while (rs.next() && film.getId() == rs.getLong("film_id")) {
-            int genreId = rs.getInt("GENRE_ID");
-            if (!rs.wasNull()) {
-                film.addGenre(new Genre(genreId));
-            }
-            int directorId = rs.getInt("DIRECTOR_ID");
-            if (!rs.wasNull()) {
-                String directorName = rs.getString("DIRECTOR_NAME");
-                film.addDirector(new Director(directorId, directorName));
-            }
-            long userId = rs.getLong("USER_ID");
-            if (!rs.wasNull()) {
-                film.addLike(userId);
-            }
-        }
-        rs.previous();
-        return film;
+        return new ArrayList<>(films.values());
     }
 
 }
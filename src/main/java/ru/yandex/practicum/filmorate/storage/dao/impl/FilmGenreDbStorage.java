@@ -11,7 +11,7 @@ import ru.yandex.practicum.filmorate.model.Film;
 import ru.yandex.practicum.filmorate.model.Genre;
 import ru.yandex.practicum.filmorate.storage.dao.FilmGenreStorage;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.function.BiConsumer;
 import static ru.yandex.practicum.filmorate.util.RowMappers.GENRE_ROW_MAPPER;
 
 @Repository("filmGenresDbStorage")
@@ -28,16 +28,23 @@ public class FilmGenreDbStorage implements FilmGenreStorage {
 
     @Override
     public Film save(Film film) {
+        saveAll(List.of(film));
+        return film;
+    }
+
+    @Override
+    public void saveAll(Collection<Film> films) {
         var sqlQuery = "INSERT INTO film_genre (film_id, genre_id) VALUES (:film_id, :genre_id)";
-        SqlParameterSource[] batch = film.getGenres()
-                .stream()
-                .map(Genre::getId)
-                .map(genreId -> new MapSqlParameterSource()
-                        .addValue("film_id", film.getId())
-                        .addValue("genre_id", genreId))
+        SqlParameterSource[] batch = films.stream()
+                .flatMap(film -> film.getGenres()
+                        .stream()
+                        .map(genre -> new MapSqlParameterSource()
+                                .addValue("film_id", film.getId())
+                                .addValue("genre_id", genre.getId())))
                 .toArray(SqlParameterSource[]::new);
-        namedParameterJdbcTemplate.batchUpdate(sqlQuery, batch);
-        return film;
+        if (batch.length > 0) {
+            namedParameterJdbcTemplate.batchUpdate(sqlQuery, batch);
+        }
     }
 
     @Override
@@ -48,16 +55,19 @@ public class FilmGenreDbStorage implements FilmGenreStorage {
 
     @Override
     public Map<Long, Set<Genre>> findAll(Collection<Long> ids) {
+        Map<Long, Set<Genre>> filmGenres = new HashMap<>();
+        forEachByFilmIds(ids, (filmId, genre) ->
+                filmGenres.computeIfAbsent(filmId, id -> new HashSet<>()).add(genre));
+        return filmGenres;
+    }
+
+    @Override
+    public void forEachByFilmIds(Collection<Long> ids, BiConsumer<Long, Genre> action) {
         var sqlQuery = "SELECT film_id, genre_id FROM film_genre WHERE film_id IN (:ids)";
         var idParams = new MapSqlParameterSource("ids", ids);
-        return namedParameterJdbcTemplate.queryForStream(sqlQuery, idParams, (rs, rowNum) ->
-                        Map.entry(rs.getLong("film_id"), new Genre(rs.getInt("genre_id"))))
-                .collect(Collectors.groupingBy(
-                        Map.Entry::getKey,
-                        Collectors.mapping(
-                                Map.Entry::getValue,
-                                Collectors.toSet()
-                        )));
+        namedParameterJdbcTemplate.query(sqlQuery, idParams, rs -> {
+            action.accept(rs.getLong("film_id"), Genre.of(rs.getInt("genre_id")));
+        });
     }
 
     @Override
@@ -72,10 +82,4 @@ public class FilmGenreDbStorage implements FilmGenreStorage {
         jdbcTemplate.update(sqlQuery);
     }
 
-    @Override
-    public List<Long> findAllByGenre(int genreId) {
-        var sqlQuery = "SELECT film_id from film_genre WHERE genre_id = ?";
-        return jdbcTemplate.queryForList(sqlQuery, Long.class, genreId);
-    }
-
 }
@@ -1,15 +1,14 @@
 package ru.yandex.practicum.filmorate.storage.dao.impl;
 
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.jdbc.core.JdbcTemplate;
-import org.springframework.jdbc.core.namedparam.BeanPropertySqlParameterSource;
 import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
-import org.springframework.jdbc.support.rowset.SqlRowSet;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 import ru.yandex.practicum.filmorate.model.Friendship;
+import ru.yandex.practicum.filmorate.model.FriendshipStatus;
 import ru.yandex.practicum.filmorate.storage.dao.FriendStorage;
 import java.util.List;
 import java.util.Optional;
@@ -29,74 +28,93 @@ public class FriendshipDbStorage implements FriendStorage {
 
     @Override
     public Friendship save(Friendship friendship) {
-        var sqlQuery = "INSERT INTO friends (user_id, friend_id) VALUES (:userId, :friendId)";
-        var friendParams = new BeanPropertySqlParameterSource(friendship);
-        namedParameterJdbcTemplate.update(sqlQuery, friendParams);
+        var sqlQuery = "INSERT INTO friendships (min_id, max_id, requester_id, status) " +
+                "VALUES (:minId, :maxId, :requesterId, :status)";
+        namedParameterJdbcTemplate.update(sqlQuery, pairParams(friendship)
+                .addValue("status", FriendshipStatus.PENDING.name()));
         return friendship;
     }
 
     @Override
     public List<Long> findFriendsIdByUserId(long id) {
-        var sqlQuery = "SELECT friend_id FROM friends WHERE user_id = :id " +
-                        "UNION SELECT user_id FROM friends WHERE friend_id = :id AND confirmed = true";
-        var idParam = new MapSqlParameterSource("id", id);
+        var sqlQuery = "SELECT max_id FROM friendships " +
+                "WHERE min_id = :id AND (requester_id = :id OR status = :confirmed) " +
+                "UNION ALL SELECT min_id FROM friendships " +
+                "WHERE max_id = :id AND (requester_id = :id OR status = :confirmed)";
+        var idParam = new MapSqlParameterSource("id", id)
+                .addValue("confirmed", FriendshipStatus.CONFIRMED.name());
         return namedParameterJdbcTemplate.queryForList(sqlQuery, idParam, Long.class);
     }
 
     @Override
     public Optional<Friendship> find(Friendship friendship) {
-        var sqlQuery = "SELECT user_id, friend_id, confirmed FROM friends " +
-                        "WHERE (user_id = :userId AND friend_id = :friendId) " +
-                                                  "OR (user_id = :friendId AND friend_id = :userId)";
-        var friendParams = new BeanPropertySqlParameterSource(friendship);
+        var sqlQuery = "SELECT min_id, max_id, requester_id FROM friendships " +
+                "WHERE min_id = :minId AND max_id = :maxId";
+        return namedParameterJdbcTemplate.query(sqlQuery, pairParams(friendship), FRIENDSHIP_ROW_MAPPER)
+                .stream()
+                .findFirst();
+    }
+
+    @Override
+    public Optional<FriendshipStatus> sendRequest(Friendship friendship) {
+        var sqlQuery = "SELECT status FROM FINAL TABLE (MERGE INTO friendships AS target " +
+                "USING (SELECT CAST(:minId AS bigint) AS min_id, CAST(:maxId AS bigint) AS max_id) AS source " +
+                "ON target.min_id = source.min_id AND target.max_id = source.max_id " +
+                "WHEN MATCHED AND target.status = :pending AND target.requester_id <> :requesterId " +
+                "THEN UPDATE SET status = :confirmed " +
+                "WHEN NOT MATCHED THEN INSERT (min_id, max_id, requester_id, status) " +
+                "VALUES (source.min_id, source.max_id, :requesterId, :pending))";
+        var friendParams = pairParams(friendship)
+                .addValue("pending", FriendshipStatus.PENDING.name())
+                .addValue("confirmed", FriendshipStatus.CONFIRMED.name());
+        List<String> states;
         try {
-            return Optional.ofNullable(namedParameterJdbcTemplate
-                    .queryForObject(sqlQuery, friendParams, FRIENDSHIP_ROW_MAPPER));
-        } catch (EmptyResultDataAccessException e) {
-            return Optional.empty();
+            states = namedParameterJdbcTemplate.queryForList(sqlQuery, friendParams, String.class);
+        } catch (DuplicateKeyException e) {
+            states = namedParameterJdbcTemplate.queryForList(sqlQuery, friendParams, String.class);
         }
+        return states.stream().findFirst().map(FriendshipStatus::valueOf);
     }
 
     @Override
     public void cancel(Friendship friendship) {
-        var sqlQuery = "DELETE FROM friends WHERE user_id = :userId AND friend_id = :friendId " +
-                                              "OR user_id = :friendId AND friend_id = :userId";
-        var friendParams = new BeanPropertySqlParameterSource(friendship);
-        namedParameterJdbcTemplate.update(sqlQuery, friendParams);
+        var sqlQuery = "DELETE FROM friendships WHERE min_id = :minId AND max_id = :maxId";
+        namedParameterJdbcTemplate.update(sqlQuery, pairParams(friendship));
     }
 
     @Override
     public boolean isExist(Friendship friendship) {
-        var sqlQuery = "SELECT user_id, friend_id FROM friends WHERE (user_id = :userId AND friend_id = :friendId) " +
-                "OR (user_id = :friendId AND friend_id = :userId)";
-        var idParams = new BeanPropertySqlParameterSource(friendship);
-        SqlRowSet rowSet = namedParameterJdbcTemplate.queryForRowSet(sqlQuery, idParams);
-        return rowSet.next();
+        var sqlQuery = "SELECT EXISTS (SELECT 1 FROM friendships WHERE min_id = :minId AND max_id = :maxId)";
+        return Boolean.TRUE.equals(namedParameterJdbcTemplate
+                .queryForObject(sqlQuery, pairParams(friendship), Boolean.class));
     }
 
     @Override
     public boolean isConfirmed(Friendship friendship) {
-        var sqlQuery = "SELECT confirmed FROM friends WHERE user_id = :userId AND friend_id = :friendId " +
-                                                        "OR user_id = :friendId AND friend_id = :userId";
-        var friendParams = new BeanPropertySqlParameterSource(friendship);
-        SqlRowSet rs = namedParameterJdbcTemplate.queryForRowSet(sqlQuery, friendParams);
-        rs.next();
-        return rs.getBoolean("confirmed");
+        var sqlQuery = "SELECT status FROM friendships WHERE min_id = :minId AND max_id = :maxId";
+        return namedParameterJdbcTemplate.queryForList(sqlQuery, pairParams(friendship), String.class)
+                .contains(FriendshipStatus.CONFIRMED.name());
     }
 
     @Override
     public boolean confirm(Friendship friendship) {
-        var sqlQuery = "UPDATE friends SET confirmed = true WHERE (user_id = :userId AND friend_id = :friendId) " +
-                                                              "OR (user_id = :friendId AND friend_id = :userId)";
-        var friendParams = new BeanPropertySqlParameterSource(friendship);
-        int affectedRows = namedParameterJdbcTemplate.update(sqlQuery, friendParams);
+        var sqlQuery = "UPDATE friendships SET status = :status WHERE min_id = :minId AND max_id = :maxId";
+        int affectedRows = namedParameterJdbcTemplate.update(sqlQuery, pairParams(friendship)
+                .addValue("status", FriendshipStatus.CONFIRMED.name()));
         return affectedRows > 0;
     }
 
     @Override
     public void deleteAll() {
-        var sqlQuery = "DELETE FROM friends";
+        var sqlQuery = "DELETE FROM friendships";
         jdbcTemplate.update(sqlQuery);
     }
 
+    private static MapSqlParameterSource pairParams(Friendship friendship) {
+        return new MapSqlParameterSource()
+                .addValue("minId", Math.min(friendship.getUserId(), friendship.getFriendId()))
+                .addValue("maxId", Math.max(friendship.getUserId(), friendship.getFriendId()))
+                .addValue("requesterId", friendship.getUserId());
+    }
+
 }
@@ -1,5 +1,6 @@
 package ru.yandex.practicum.filmorate.storage.dao.impl;
 
+import com.google.common.collect.Iterables;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.namedparam.BeanPropertySqlParameterSource;
@@ -9,12 +10,9 @@ import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 import ru.yandex.practicum.filmorate.model.Like;
 import ru.yandex.practicum.filmorate.storage.dao.LikeStorage;
-import java.util.Collection;
-import java.util.List;
-import java.util.Map;
-import java.util.Set;
-import java.util.stream.Collectors;
-import static ru.yandex.practicum.filmorate.util.RowMappers.LIKE_ROW_MAPPER;
+import java.util.*;
+import java.util.function.BiConsumer;
+import static ru.yandex.practicum.filmorate.util.Statements.IN_CLAUSE_BATCH_SIZE;
 
 @Repository("likeDbStorage")
 @Transactional
@@ -32,7 +30,22 @@ public class LikeDbStorage implements LikeStorage {
     public boolean save(Like like) {
         var sqlQuery = "INSERT INTO likes (film_id, user_id) VALUES (:filmId, :userId)";
         var likeParams = new BeanPropertySqlParameterSource(like);
-        return namedParameterJdbcTemplate.update(sqlQuery, likeParams) > 0;
+        boolean saved = namedParameterJdbcTemplate.update(sqlQuery, likeParams) > 0;
+        if (saved) {
+            updateLikeCount(like, 1);
+        }
+        return saved;
+    }
+
+    @Override
+    public List<Like> saveAll(Collection<Like> likes) {
+        var sqlQuery = "MERGE INTO likes " +
+                "USING (SELECT CAST(? AS bigint) AS film_id, CAST(? AS bigint) AS user_id) AS source " +
+                "ON likes.film_id = source.film_id AND likes.user_id = source.user_id " +
+                "WHEN NOT MATCHED THEN INSERT (film_id, user_id) VALUES (source.film_id, source.user_id)";
+        List<Like> saved = applyBatch(sqlQuery, likes);
+        updateLikeCounts(saved, 1);
+        return saved;
     }
 
     @Override
@@ -43,21 +56,48 @@ public class LikeDbStorage implements LikeStorage {
 
     @Override
     public Map<Long, Set<Long>> findAll(Collection<Long> ids) {
+        Map<Long, Set<Long>> likes = new HashMap<>();
+        forEachByFilmIds(ids, (filmId, userId) ->
+                likes.computeIfAbsent(filmId, id -> new HashSet<>()).add(userId));
+        return likes;
+    }
+
+    @Override
+    public void forEachByFilmIds(Collection<Long> ids, BiConsumer<Long, Long> action) {
         var sqlQuery = "SELECT film_id, user_id FROM likes WHERE film_id IN (:ids)";
         var idParams = new MapSqlParameterSource("ids", ids);
-        return namedParameterJdbcTemplate.queryForStream(sqlQuery, idParams, LIKE_ROW_MAPPER)
-                .collect(Collectors.groupingBy(
-                        Like::getFilmId,
-                        Collectors.mapping(
-                                Like::getUserId,
-                                Collectors.toSet())));
+        namedParameterJdbcTemplate.query(sqlQuery, idParams, rs -> {
+            action.accept(rs.getLong("film_id"), rs.getLong("user_id"));
+        });
     }
 
     @Override
     public boolean delete(Like like) {
         var sqlQuery = "DELETE FROM likes WHERE film_id = :filmId AND user_id = :userId";
         var likeParams = new BeanPropertySqlParameterSource(like);
-        return namedParameterJdbcTemplate.update(sqlQuery, likeParams) > 0;
+        boolean deleted = namedParameterJdbcTemplate.update(sqlQuery, likeParams) > 0;
+        if (deleted) {
+            updateLikeCount(like, -1);
+        }
+        return deleted;
+    }
+
+    @Override
+    public List<Like> deleteAll(Collection<Like> likes) {
+        var sqlQuery = "DELETE FROM likes WHERE film_id = ? AND user_id = ?";
+        List<Like> deleted = applyBatch(sqlQuery, likes);
+        updateLikeCounts(deleted, -1);
+        return deleted;
+    }
+
+    @Override
+    public List<Long> deleteAllByUserId(long userId) {
+        var sqlQuery = "SELECT film_id FROM likes WHERE user_id = ?";
+        List<Long> filmsId = jdbcTemplate.queryForList(sqlQuery, Long.class, userId);
+        jdbcTemplate.update("UPDATE films SET like_count = like_count - 1 " +
+                "WHERE film_id IN (SELECT film_id FROM likes WHERE user_id = ?)", userId);
+        jdbcTemplate.update("DELETE FROM likes WHERE user_id = ?", userId);
+        return filmsId;
     }
 
     @Override
@@ -68,48 +108,78 @@ public class LikeDbStorage implements LikeStorage {
         return rowSet.next();
     }
 
+    @Override
+    public Set<Like> findExisting(Collection<Like> likes) {
+        var sqlQuery = "SELECT film_id, user_id FROM likes WHERE (film_id, user_id) IN (:pairs)";
+        Set<Like> existing = new HashSet<>();
+        for (List<Like> batch : Iterables.partition(new LinkedHashSet<>(likes), IN_CLAUSE_BATCH_SIZE)) {
+            List<Object[]> pairs = new ArrayList<>(batch.size());
+            batch.forEach(like -> pairs.add(new Object[]{like.getFilmId(), like.getUserId()}));
+            namedParameterJdbcTemplate.query(sqlQuery, new MapSqlParameterSource("pairs", pairs), rs -> {
+                existing.add(new Like(rs.getLong("film_id"), rs.getLong("user_id")));
+            });
+        }
+        return existing;
+    }
+
     @Override
     public void deleteAll() {
         var sqlQuery = "DELETE FROM likes";
         jdbcTemplate.update(sqlQuery);
+        jdbcTemplate.update("UPDATE films SET like_count = 0");
     }
 
     @Override
-    public List<Long> findCommonLikes(long userId, long friendId) {
-        var sqlQuery = "SELECT film_id FROM likes WHERE user_id=? OR user_id=? " +
-                "GROUP BY film_id HAVING count(user_id)=2";
-        return jdbcTemplate.queryForList(sqlQuery, Long.class, userId, friendId);
+    public List<Long> findCommonLikes(long userId, long friendId, int count) {
+        var sqlQuery = "SELECT films.film_id FROM likes AS own " +
+                "INNER JOIN likes AS other ON other.film_id = own.film_id AND other.user_id = ? " +
+                "AND other.user_id <> own.user_id " +
+                "INNER JOIN films ON films.film_id = own.film_id " +
+                "WHERE own.user_id = ? " +
+                "ORDER BY films.like_count DESC, films.film_id LIMIT ?";
+        return jdbcTemplate.queryForList(sqlQuery, Long.class, friendId, userId, count);
     }
 
     @Override
     public List<Long> findPopular(int count) {
-        var sqlQuery = "SELECT film_id FROM likes GROUP BY film_id ORDER BY COUNT(user_id) DESC LIMIT ?";
+        var sqlQuery = "SELECT film_id FROM films WHERE like_count > 0 ORDER BY like_count DESC, film_id LIMIT ?";
         return jdbcTemplate.queryForList(sqlQuery, Long.class, count);
     }
 
-    @Override
-    public List<Long> suggestFilms(long userId) {
-        var sqlQuery = "WITH user_favorite_films AS " +
-                "    (SELECT film_id " +
-                "     FROM likes " +
-                "     WHERE user_id = :userId) " +
-                "SELECT DISTINCT film_id " +
-                "FROM likes " +
-                "WHERE user_id IN " +
-                "        (SELECT user_id " +
-                "         FROM likes " +
-                "         WHERE film_id IN " +
-                "                 (SELECT film_id " +
-                "                  FROM user_favorite_films) " +
-                "             AND user_id != :userId " +
-                "         GROUP BY user_id " +
-                "         ORDER BY COUNT(user_id) DESC " +
-                "         LIMIT 3) " +
-                "    AND film_id NOT IN " +
-                "        (SELECT film_id " +
-                "         FROM user_favorite_films)";
-        return namedParameterJdbcTemplate.queryForList(sqlQuery,
-                new MapSqlParameterSource("userId", userId), Long.class);
+    private void updateLikeCount(Like like, int delta) {
+        var sqlQuery = "UPDATE films SET like_count = like_count + ? WHERE film_id = ?";
+        jdbcTemplate.update(sqlQuery, delta, like.getFilmId());
+    }
+
+    private List<Like> applyBatch(String sqlQuery, Collection<Like> likes) {
+        List<Like> batch = new ArrayList<>(likes);
+        if (batch.isEmpty()) {
+            return batch;
+        }
+        int[] counts = jdbcTemplate.batchUpdate(sqlQuery, batch, batch.size(), (statement, like) -> {
+            statement.setLong(1, like.getFilmId());
+            statement.setLong(2, like.getUserId());
+        })[0];
+        List<Like> applied = new ArrayList<>(batch.size());
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] > 0) {
+                applied.add(batch.get(i));
+            }
+        }
+        return applied;
+    }
+
+    private void updateLikeCounts(List<Like> likes, int sign) {
+        Map<Long, Integer> deltas = new HashMap<>();
+        likes.forEach(like -> deltas.merge(like.getFilmId(), sign, Integer::sum));
+        if (deltas.isEmpty()) {
+            return;
+        }
+        var sqlQuery = "UPDATE films SET like_count = like_count + ? WHERE film_id = ?";
+        jdbcTemplate.batchUpdate(sqlQuery, new ArrayList<>(deltas.entrySet()), deltas.size(), (statement, delta) -> {
+            statement.setInt(1, delta.getValue());
+            statement.setLong(2, delta.getKey());
+        });
     }
 
 }
@@ -12,6 +12,7 @@ import ru.yandex.practicum.filmorate.exception.ValidationException;
 import ru.yandex.practicum.filmorate.model.Review;
 import ru.yandex.practicum.filmorate.storage.dao.DAOValidator;
 import ru.yandex.practicum.filmorate.storage.dao.ReviewStorage;
+import ru.yandex.practicum.filmorate.storage.index.KnownIdsIndex;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
@@ -26,11 +27,13 @@ public class ReviewDbStorage implements ReviewStorage {
     private final JdbcTemplate jdbcTemplate;
     private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
     private final DAOValidator daoValidator;
+    private final KnownIdsIndex knownIds;
 
-    public ReviewDbStorage(@Autowired JdbcTemplate jdbcTemplate, DAOValidator daoValidator) {
+    public ReviewDbStorage(@Autowired JdbcTemplate jdbcTemplate, DAOValidator daoValidator, KnownIdsIndex knownIds) {
         this.jdbcTemplate = jdbcTemplate;
         this.namedParameterJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
         this.daoValidator = daoValidator;
+        this.knownIds = knownIds;
     }
 
     @Override
@@ -67,6 +70,7 @@ public class ReviewDbStorage implements ReviewStorage {
         if (review.getReviewId() == 0) {
             long autoGeneratedKey = Objects.requireNonNull(keyHolder.getKey()).longValue();
             review.setReviewId(autoGeneratedKey);
+            knownIds.addReview(autoGeneratedKey);
         }
         return findById(review.getReviewId());
     }
@@ -104,16 +108,56 @@ public class ReviewDbStorage implements ReviewStorage {
 
     @Override
     public void likeReview(Long id, Long userId) {
-        Review review = findById(id);
-        String sqlQuery = "UPDATE review SET USEFUL = ? WHERE review_Id = ?";
-        jdbcTemplate.update(sqlQuery, review.getUseful() + 1, id);
+        vote(id, userId, 1);
     }
 
     @Override
     public void dislikeReview(Long id, Long userId) {
-        Review review = findById(id);
-        String sqlQuery = "UPDATE review SET USEFUL = ? WHERE review_Id = ?";
-        jdbcTemplate.update(sqlQuery, review.getUseful() - 1, id);
+        vote(id, userId, -1);
+    }
+
+    @Override
+    public void removeLikeReview(Long id, Long userId) {
+        removeVote(id, userId, 1);
+    }
+
+    @Override
+    public void removeDislikeReview(Long id, Long userId) {
+        removeVote(id, userId, -1);
+    }
+
+    @Override
+    public void deleteVotesByUserId(long userId) {
+        var sqlQuery = "MERGE INTO review AS target " +
+                "USING (SELECT review_id, SUM(vote) AS total FROM review_votes " +
+                "WHERE user_id = ? GROUP BY review_id) AS source " +
+                "ON target.review_Id = source.review_id " +
+                "WHEN MATCHED THEN UPDATE SET useful = useful - source.total";
+        jdbcTemplate.update(sqlQuery, userId);
+        jdbcTemplate.update("DELETE FROM review_votes WHERE user_id = ?", userId);
+    }
+
+    private void vote(long id, long userId, int vote) {
+        var sqlQuery = "SELECT vote FROM OLD TABLE (MERGE INTO review_votes (review_id, user_id, vote) " +
+                "KEY (review_id, user_id) VALUES (?, ?, ?))";
+        int previous = jdbcTemplate.queryForList(sqlQuery, Integer.class, id, userId, vote).stream()
+                .findFirst()
+                .orElse(0);
+        if (previous != vote) {
+            updateUseful(id, vote - previous);
+        }
+    }
+
+    private void removeVote(long id, long userId, int vote) {
+        var sqlQuery = "DELETE FROM review_votes WHERE review_id = ? AND user_id = ? AND vote = ?";
+        if (jdbcTemplate.update(sqlQuery, id, userId, vote) > 0) {
+            updateUseful(id, -vote);
+        }
+    }
+
+    private void updateUseful(long id, int delta) {
+        var sqlQuery = "UPDATE review SET useful = useful + ? WHERE review_Id = ?";
+        jdbcTemplate.update(sqlQuery, delta, id);
     }
 
     private void reviewBuilder(SqlRowSet rows, List<Review> list) {
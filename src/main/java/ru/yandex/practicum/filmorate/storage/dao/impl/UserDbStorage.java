@@ -1,5 +1,6 @@
 package ru.yandex.practicum.filmorate.storage.dao.impl;
 
+import com.google.common.collect.Iterables;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.dao.EmptyResultDataAccessException;
 import org.springframework.jdbc.core.JdbcTemplate;
@@ -7,13 +8,14 @@ import org.springframework.jdbc.core.namedparam.BeanPropertySqlParameterSource;
 import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import org.springframework.jdbc.support.GeneratedKeyHolder;
-import org.springframework.jdbc.support.rowset.SqlRowSet;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 import ru.yandex.practicum.filmorate.model.User;
 import ru.yandex.practicum.filmorate.storage.UserStorage;
+import ru.yandex.practicum.filmorate.storage.index.KnownIdsIndex;
 import java.util.*;
 import static ru.yandex.practicum.filmorate.util.RowMappers.USER_ROW_MAPPER;
+import static ru.yandex.practicum.filmorate.util.Statements.IN_CLAUSE_BATCH_SIZE;
 
 @Repository("userDbStorage")
 @Transactional
@@ -21,10 +23,13 @@ public class UserDbStorage implements UserStorage {
 
     private final JdbcTemplate jdbcTemplate;
     private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+    private final KnownIdsIndex knownIds;
 
-    public UserDbStorage(@Autowired JdbcTemplate jdbcTemplate) {
+    @Autowired
+    public UserDbStorage(JdbcTemplate jdbcTemplate, KnownIdsIndex knownIds) {
         this.jdbcTemplate = jdbcTemplate;
         this.namedParameterJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+        this.knownIds = knownIds;
     }
 
     @Override
@@ -43,6 +48,7 @@ public class UserDbStorage implements UserStorage {
          if (user.getId() == 0) {
              long autoGeneratedKey = Objects.requireNonNull(keyHolder.getKey()).longValue();
              user.setId(autoGeneratedKey);
+             knownIds.addUser(autoGeneratedKey);
          }
         return user;
     }
@@ -85,9 +91,24 @@ public class UserDbStorage implements UserStorage {
 
     @Override
     public boolean existsById(long id) {
-        var sqlQuery = "SELECT user_id FROM users WHERE user_id = ?";
-        SqlRowSet rowSet = jdbcTemplate.queryForRowSet(sqlQuery, id);
-        return rowSet.next();
+        if (!knownIds.mightContainUser(id)) {
+            return false;
+        }
+        var sqlQuery = "SELECT EXISTS (SELECT 1 FROM users WHERE user_id = ?)";
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(sqlQuery, Boolean.class, id));
+    }
+
+    @Override
+    public Set<Long> findExistingIds(Collection<Long> ids) {
+        var sqlQuery = "SELECT user_id FROM users WHERE user_id IN (:ids)";
+        Set<Long> existing = new HashSet<>();
+        Set<Long> candidates = new LinkedHashSet<>();
+        ids.stream().filter(knownIds::mightContainUser).forEach(candidates::add);
+        for (List<Long> batch : Iterables.partition(candidates, IN_CLAUSE_BATCH_SIZE)) {
+            var idsParams = new MapSqlParameterSource("ids", batch);
+            existing.addAll(namedParameterJdbcTemplate.queryForList(sqlQuery, idsParams, Long.class));
+        }
+        return existing;
     }
 
     @Override
@@ -0,0 +1,158 @@
+package ru.yandex.practicum.filmorate.storage.index;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.Value;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import javax.annotation.PostConstruct;
+import java.util.*;
+import java.util.stream.Collectors;
+
+@Component
+public class FilmPopularityIndex {
+
+    private static final Comparator<Rank> MOST_POPULAR_FIRST = Comparator.comparingInt(Rank::getLikeCount)
+            .reversed()
+            .thenComparingLong(Rank::getFilmId);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Map<Long, Entry> entries = new HashMap<>();
+    private final NavigableSet<Rank> all = new TreeSet<>(MOST_POPULAR_FIRST);
+    private final Map<Integer, NavigableSet<Rank>> byYear = new HashMap<>();
+    private final Map<Integer, NavigableSet<Rank>> byGenre = new HashMap<>();
+    private final Map<Long, NavigableSet<Rank>> byYearAndGenre = new HashMap<>();
+
+    @Autowired
+    public FilmPopularityIndex(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @PostConstruct
+    public synchronized void rebuild() {
+        entries.clear();
+        all.clear();
+        byYear.clear();
+        byGenre.clear();
+        byYearAndGenre.clear();
+        jdbcTemplate.query("SELECT film_id, like_count, release_date FROM films", rs -> {
+            long filmId = rs.getLong("film_id");
+            entries.put(filmId, new Entry(new Rank(rs.getInt("like_count"), filmId),
+                    rs.getDate("release_date").toLocalDate().getYear(), new HashSet<>()));
+        });
+        jdbcTemplate.query("SELECT film_id, genre_id FROM film_genre", rs -> {
+            Entry entry = entries.get(rs.getLong("film_id"));
+            if (entry != null) {
+                entry.getGenres().add(rs.getInt("genre_id"));
+            }
+        });
+        entries.values().forEach(this::link);
+    }
+
+    public synchronized void put(Film film) {
+        Set<Integer> genres = film.getGenres()
+                .stream()
+                .map(Genre::getId)
+                .collect(Collectors.toSet());
+        Entry entry = new Entry(new Rank(film.getPopularity(), film.getId()),
+                film.getReleaseDate().getYear(), genres);
+        Entry previous = entries.put(film.getId(), entry);
+        if (previous != null) {
+            unlink(previous);
+        }
+        link(entry);
+    }
+
+    public synchronized void remove(long filmId) {
+        Entry entry = entries.remove(filmId);
+        if (entry != null) {
+            unlink(entry);
+        }
+    }
+
+    public synchronized void changeLikeCount(long filmId, int delta) {
+        Entry entry = entries.get(filmId);
+        if (entry == null) {
+            return;
+        }
+        unlink(entry);
+        entry.setRank(new Rank(Math.max(0, entry.getRank().getLikeCount() + delta), filmId));
+        link(entry);
+    }
+
+    public synchronized List<Long> findTop(int count, Integer year, Integer genreId) {
+        NavigableSet<Rank> ranks;
+        if (year == null && genreId == null) {
+            ranks = all;
+        } else if (year != null && genreId != null) {
+            ranks = byYearAndGenre.get(yearAndGenreKey(year, genreId));
+        } else if (year != null) {
+            ranks = byYear.get(year);
+        } else {
+            ranks = byGenre.get(genreId);
+        }
+        if (ranks == null) {
+            return new ArrayList<>();
+        }
+        return ranks.stream()
+                .limit(count)
+                .map(Rank::getFilmId)
+                .collect(Collectors.toList());
+    }
+
+    private void link(Entry entry) {
+        Rank rank = entry.getRank();
+        all.add(rank);
+        partition(byYear, entry.getYear()).add(rank);
+        for (int genreId : entry.getGenres()) {
+            partition(byGenre, genreId).add(rank);
+            partition(byYearAndGenre, yearAndGenreKey(entry.getYear(), genreId)).add(rank);
+        }
+    }
+
+    private void unlink(Entry entry) {
+        Rank rank = entry.getRank();
+        all.remove(rank);
+        detach(byYear, entry.getYear(), rank);
+        for (int genreId : entry.getGenres()) {
+            detach(byGenre, genreId, rank);
+            detach(byYearAndGenre, yearAndGenreKey(entry.getYear(), genreId), rank);
+        }
+    }
+
+    private static <K> NavigableSet<Rank> partition(Map<K, NavigableSet<Rank>> partitions, K key) {
+        return partitions.computeIfAbsent(key, k -> new TreeSet<>(MOST_POPULAR_FIRST));
+    }
+
+    private static <K> void detach(Map<K, NavigableSet<Rank>> partitions, K key, Rank rank) {
+        NavigableSet<Rank> ranks = partitions.get(key);
+        if (ranks != null) {
+            ranks.remove(rank);
+            if (ranks.isEmpty()) {
+                partitions.remove(key);
+            }
+        }
+    }
+
+    private static long yearAndGenreKey(int year, int genreId) {
+        return ((long) year << 32) | (genreId & 0xFFFFFFFFL);
+    }
+
+    @Value
+    private static class Rank {
+        int likeCount;
+        long filmId;
+    }
+
+    @Data
+    @AllArgsConstructor
+    private static class Entry {
+        private Rank rank;
+        private final int year;
+        private final Set<Integer> genres;
+    }
+
+}
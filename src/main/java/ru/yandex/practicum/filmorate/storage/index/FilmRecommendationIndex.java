@@ -0,0 +1,229 @@
+package ru.yandex.practicum.filmorate.storage.index;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import javax.annotation.PostConstruct;
+import java.util.*;
+
+@Component
+public class FilmRecommendationIndex {
+
+    private static final int NEIGHBOURS = 20;
+    private static final Comparator<Neighbour> LEAST_SIMILAR_FIRST = Comparator
+            .comparingDouble(Neighbour::getSimilarity)
+            .thenComparing(Neighbour::getUserId, Comparator.reverseOrder());
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int neighboursCapacity;
+    private final Map<Long, Integer> userIndex = new HashMap<>();
+    private final Map<Long, Integer> filmIndex = new HashMap<>();
+    private final List<Long> userIds = new ArrayList<>();
+    private final List<Long> filmIds = new ArrayList<>();
+    private final List<BitSet> filmsOfUser = new ArrayList<>();
+    private final List<BitSet> usersOfFilm = new ArrayList<>();
+    private final Deque<Integer> freeUsers = new ArrayDeque<>();
+    private final Deque<Integer> freeFilms = new ArrayDeque<>();
+    private final LinkedHashMap<Integer, List<Neighbour>> neighbours = new LinkedHashMap<>(16, 0.75f, true);
+
+    @Autowired
+    public FilmRecommendationIndex(JdbcTemplate jdbcTemplate,
+                                   @Value("${filmorate.recommendations.neighbours-capacity:10000}")
+                                   int neighboursCapacity) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.neighboursCapacity = neighboursCapacity;
+    }
+
+    @PostConstruct
+    public synchronized void rebuild() {
+        userIndex.clear();
+        filmIndex.clear();
+        userIds.clear();
+        filmIds.clear();
+        filmsOfUser.clear();
+        usersOfFilm.clear();
+        freeUsers.clear();
+        freeFilms.clear();
+        neighbours.clear();
+        jdbcTemplate.query("SELECT user_id, film_id FROM likes", rs -> {
+            addLike(rs.getLong("user_id"), rs.getLong("film_id"));
+        });
+    }
+
+    public synchronized void addLike(long userId, long filmId) {
+        int user = userIndexOf(userId);
+        int film = filmIndexOf(filmId);
+        if (filmsOfUser.get(user).get(film)) {
+            return;
+        }
+        invalidateOverlapping(user, film);
+        filmsOfUser.get(user).set(film);
+        usersOfFilm.get(film).set(user);
+    }
+
+    public synchronized void removeLike(long userId, long filmId) {
+        Integer user = userIndex.get(userId);
+        Integer film = filmIndex.get(filmId);
+        if (user == null || film == null || !filmsOfUser.get(user).get(film)) {
+            return;
+        }
+        invalidateOverlapping(user, film);
+        unlink(user, film);
+    }
+
+    public synchronized void removeUser(long userId) {
+        Integer user = userIndex.get(userId);
+        if (user == null) {
+            return;
+        }
+        BitSet films = (BitSet) filmsOfUser.get(user).clone();
+        invalidateOverlapping(user, -1);
+        for (int film = films.nextSetBit(0); film >= 0; film = films.nextSetBit(film + 1)) {
+            unlink(user, film);
+        }
+    }
+
+    public synchronized void removeFilm(long filmId) {
+        Integer film = filmIndex.get(filmId);
+        if (film == null) {
+            return;
+        }
+        neighbours.clear();
+        BitSet users = (BitSet) usersOfFilm.get(film).clone();
+        for (int user = users.nextSetBit(0); user >= 0; user = users.nextSetBit(user + 1)) {
+            unlink(user, film);
+        }
+    }
+
+    public synchronized List<Long> recommend(long userId, int count) {
+        Integer user = userIndex.get(userId);
+        if (user == null || count <= 0) {
+            return new ArrayList<>();
+        }
+        BitSet liked = filmsOfUser.get(user);
+        Map<Integer, Double> scores = new HashMap<>();
+        for (Neighbour neighbour : neighboursOf(user)) {
+            BitSet candidates = (BitSet) filmsOfUser.get(neighbour.getUser()).clone();
+            candidates.andNot(liked);
+            for (int film = candidates.nextSetBit(0); film >= 0; film = candidates.nextSetBit(film + 1)) {
+                scores.merge(film, neighbour.getSimilarity(), Double::sum);
+            }
+        }
+        Comparator<Map.Entry<Integer, Double>> bestFirst = Map.Entry.<Integer, Double>comparingByValue().reversed();
+        List<Long> recommended = new ArrayList<>();
+        scores.entrySet()
+                .stream()
+                .sorted(bestFirst.thenComparing(entry -> filmIds.get(entry.getKey())))
+                .limit(count)
+                .forEach(entry -> recommended.add(filmIds.get(entry.getKey())));
+        return recommended;
+    }
+
+    private List<Neighbour> neighboursOf(int user) {
+        List<Neighbour> cached = neighbours.get(user);
+        if (cached != null) {
+            return cached;
+        }
+        BitSet liked = filmsOfUser.get(user);
+        int likedCount = liked.cardinality();
+        Map<Integer, Integer> common = new HashMap<>();
+        for (int film = liked.nextSetBit(0); film >= 0; film = liked.nextSetBit(film + 1)) {
+            BitSet users = usersOfFilm.get(film);
+            for (int other = users.nextSetBit(0); other >= 0; other = users.nextSetBit(other + 1)) {
+                if (other != user) {
+                    common.merge(other, 1, Integer::sum);
+                }
+            }
+        }
+        PriorityQueue<Neighbour> closest = new PriorityQueue<>(NEIGHBOURS + 1, LEAST_SIMILAR_FIRST);
+        common.forEach((other, shared) -> {
+            double similarity = (double) shared / (likedCount + filmsOfUser.get(other).cardinality() - shared);
+            closest.add(new Neighbour(other, userIds.get(other), similarity));
+            if (closest.size() > NEIGHBOURS) {
+                closest.poll();
+            }
+        });
+        List<Neighbour> computed = new ArrayList<>(closest);
+        computed.sort(LEAST_SIMILAR_FIRST.reversed());
+        neighbours.put(user, computed);
+        if (neighbours.size() > neighboursCapacity) {
+            neighbours.remove(neighbours.keySet().iterator().next());
+        }
+        return computed;
+    }
+
+    private void invalidateOverlapping(int user, int film) {
+        neighbours.remove(user);
+        if (neighbours.isEmpty()) {
+            return;
+        }
+        BitSet films = (BitSet) filmsOfUser.get(user).clone();
+        if (film >= 0) {
+            films.set(film);
+        }
+        BitSet overlapping = new BitSet();
+        for (int liked = films.nextSetBit(0); liked >= 0; liked = films.nextSetBit(liked + 1)) {
+            overlapping.or(usersOfFilm.get(liked));
+        }
+        if (overlapping.cardinality() < neighbours.size()) {
+            for (int other = overlapping.nextSetBit(0); other >= 0; other = overlapping.nextSetBit(other + 1)) {
+                neighbours.remove(other);
+            }
+        } else {
+            neighbours.keySet().removeIf(overlapping::get);
+        }
+    }
+
+    private void unlink(int user, int film) {
+        filmsOfUser.get(user).clear(film);
+        usersOfFilm.get(film).clear(user);
+        if (filmsOfUser.get(user).isEmpty()) {
+            userIndex.remove(userIds.get(user));
+            userIds.set(user, null);
+            freeUsers.push(user);
+        }
+        if (usersOfFilm.get(film).isEmpty()) {
+            filmIndex.remove(filmIds.get(film));
+            filmIds.set(film, null);
+            freeFilms.push(film);
+        }
+    }
+
+    private int userIndexOf(long userId) {
+        return userIndex.computeIfAbsent(userId, id -> {
+            if (!freeUsers.isEmpty()) {
+                int slot = freeUsers.pop();
+                userIds.set(slot, id);
+                return slot;
+            }
+            userIds.add(id);
+            filmsOfUser.add(new BitSet());
+            return userIds.size() - 1;
+        });
+    }
+
+    private int filmIndexOf(long filmId) {
+        return filmIndex.computeIfAbsent(filmId, id -> {
+            if (!freeFilms.isEmpty()) {
+                int slot = freeFilms.pop();
+                filmIds.set(slot, id);
+                return slot;
+            }
+            filmIds.add(id);
+            usersOfFilm.add(new BitSet());
+            return filmIds.size() - 1;
+        });
+    }
+
+    @Getter
+    @AllArgsConstructor
+    private static class Neighbour {
+        private final int user;
+        private final long userId;
+        private final double similarity;
+    }
+
+}
@@ -0,0 +1,177 @@
+package ru.yandex.practicum.filmorate.storage.index;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.Director;
+import ru.yandex.practicum.filmorate.model.Film;
+import javax.annotation.PostConstruct;
+import java.text.Normalizer;
+import java.util.*;
+import java.util.stream.Collectors;
+
+@Component
+public class FilmSearchIndex {
+
+    private static final int GRAM = 3;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Postings<Long> titles = new Postings<>();
+    private final Postings<Integer> directors = new Postings<>();
+    private final Map<Long, Set<Integer>> directorsByFilm = new HashMap<>();
+    private final Map<Integer, Set<Long>> filmsByDirector = new HashMap<>();
+
+    @Autowired
+    public FilmSearchIndex(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @PostConstruct
+    public synchronized void rebuild() {
+        titles.clear();
+        directors.clear();
+        directorsByFilm.clear();
+        filmsByDirector.clear();
+        jdbcTemplate.query("SELECT film_id, name FROM films", rs -> {
+            titles.put(rs.getLong("film_id"), rs.getString("name"));
+        });
+        jdbcTemplate.query("SELECT id, name FROM directors", rs -> {
+            directors.put(rs.getInt("id"), rs.getString("name"));
+        });
+        jdbcTemplate.query("SELECT film_id, director_id FROM film_directors", rs -> {
+            link(rs.getLong("film_id"), rs.getInt("director_id"));
+        });
+    }
+
+    public synchronized void putFilm(Film film) {
+        removeFilm(film.getId());
+        titles.put(film.getId(), film.getName());
+        for (Director director : film.getDirectors()) {
+            link(film.getId(), director.getId());
+        }
+    }
+
+    public synchronized void removeFilm(long filmId) {
+        titles.remove(filmId);
+        Set<Integer> directorIds = directorsByFilm.remove(filmId);
+        if (directorIds != null) {
+            for (int directorId : directorIds) {
+                Set<Long> films = filmsByDirector.get(directorId);
+                films.remove(filmId);
+                if (films.isEmpty()) {
+                    filmsByDirector.remove(directorId);
+                }
+            }
+        }
+    }
+
+    public synchronized void putDirector(Director director) {
+        directors.remove(director.getId());
+        directors.put(director.getId(), director.getName());
+    }
+
+    public synchronized void removeDirector(int directorId) {
+        directors.remove(directorId);
+        Set<Long> films = filmsByDirector.remove(directorId);
+        if (films != null) {
+            films.forEach(filmId -> directorsByFilm.get(filmId).remove(directorId));
+        }
+    }
+
+    public synchronized Set<Long> findByTitle(String query) {
+        return titles.find(fold(query));
+    }
+
+    public synchronized Set<Long> findByDirector(String query) {
+        Set<Long> found = new HashSet<>();
+        for (int directorId : directors.find(fold(query))) {
+            found.addAll(filmsByDirector.getOrDefault(directorId, Collections.emptySet()));
+        }
+        return found;
+    }
+
+    public String plan(String query) {
+        return fold(query).length() < GRAM ? "scan" : "trigram";
+    }
+
+    public static String fold(String text) {
+        return Normalizer.normalize(text, Normalizer.Form.NFC)
+                .toUpperCase(Locale.ROOT)
+                .toLowerCase(Locale.ROOT)
+                .replace('ё', 'е');
+    }
+
+    private void link(long filmId, int directorId) {
+        directorsByFilm.computeIfAbsent(filmId, id -> new HashSet<>()).add(directorId);
+        filmsByDirector.computeIfAbsent(directorId, id -> new HashSet<>()).add(filmId);
+    }
+
+    private static Set<String> grams(String folded) {
+        Set<String> grams = new HashSet<>();
+        for (int i = 0; i + GRAM <= folded.length(); i++) {
+            grams.add(folded.substring(i, i + GRAM));
+        }
+        return grams;
+    }
+
+    private static class Postings<K> {
+
+        private final Map<K, String> names = new HashMap<>();
+        private final Map<String, Set<K>> byGram = new HashMap<>();
+
+        void put(K key, String name) {
+            String folded = name == null ? "" : fold(name);
+            names.put(key, folded);
+            for (String gram : grams(folded)) {
+                byGram.computeIfAbsent(gram, g -> new HashSet<>()).add(key);
+            }
+        }
+
+        void remove(K key) {
+            String folded = names.remove(key);
+            if (folded == null) {
+                return;
+            }
+            for (String gram : grams(folded)) {
+                Set<K> keys = byGram.get(gram);
+                keys.remove(key);
+                if (keys.isEmpty()) {
+                    byGram.remove(gram);
+                }
+            }
+        }
+
+        void clear() {
+            names.clear();
+            byGram.clear();
+        }
+
+        Set<K> find(String folded) {
+            if (folded.length() < GRAM) {
+                return names.entrySet()
+                        .stream()
+                        .filter(entry -> entry.getValue().contains(folded))
+                        .map(Map.Entry::getKey)
+                        .collect(Collectors.toSet());
+            }
+            List<Set<K>> postings = new ArrayList<>();
+            for (String gram : grams(folded)) {
+                Set<K> keys = byGram.get(gram);
+                if (keys == null) {
+                    return new HashSet<>();
+                }
+                postings.add(keys);
+            }
+            postings.sort(Comparator.comparingInt(Set::size));
+            Set<K> found = new HashSet<>();
+            for (K key : postings.get(0)) {
+                if (names.get(key).contains(folded)) {
+                    found.add(key);
+                }
+            }
+            return found;
+        }
+
+    }
+
+}
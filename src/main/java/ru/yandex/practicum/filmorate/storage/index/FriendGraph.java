@@ -0,0 +1,384 @@
+package ru.yandex.practicum.filmorate.storage.index;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.exception.SearchLimitExceededException;
+import ru.yandex.practicum.filmorate.model.FriendshipStatus;
+import javax.annotation.PostConstruct;
+import java.util.*;
+import java.util.stream.Collectors;
+
+@Component
+public class FriendGraph {
+
+    private static final Comparator<Map.Entry<Long, Integer>> MOST_MUTUAL_FIRST = Map.Entry.<Long, Integer>
+            comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey());
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int suggestionsCapacity;
+    private final int suggestionsMaxUsers;
+    private final int suggestionsMaxEdges;
+    private final int pathMaxExpansions;
+    private final Map<Long, Adjacency> friends = new HashMap<>();
+    private final Map<Long, Adjacency> followers = new HashMap<>();
+    private final LinkedHashMap<Long, List<Long>> suggestions = new LinkedHashMap<>(16, 0.75f, true);
+
+    @Autowired
+    public FriendGraph(JdbcTemplate jdbcTemplate,
+                       @Value("${filmorate.friends.suggestions.capacity:50}") int suggestionsCapacity,
+                       @Value("${filmorate.friends.suggestions.max-users:10000}") int suggestionsMaxUsers,
+                       @Value("${filmorate.friends.suggestions.max-edges:100000}") int suggestionsMaxEdges,
+                       @Value("${filmorate.friends.path.max-expansions:100000}") int pathMaxExpansions) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.suggestionsCapacity = suggestionsCapacity;
+        this.suggestionsMaxUsers = suggestionsMaxUsers;
+        this.suggestionsMaxEdges = suggestionsMaxEdges;
+        this.pathMaxExpansions = pathMaxExpansions;
+    }
+
+    @PostConstruct
+    public synchronized void rebuild() {
+        friends.clear();
+        followers.clear();
+        suggestions.clear();
+        jdbcTemplate.query("SELECT min_id, max_id, requester_id, status FROM friendships", rs -> {
+            long requesterId = rs.getLong("requester_id");
+            long otherId = rs.getLong("min_id") + rs.getLong("max_id") - requesterId;
+            adjacencyOf(friends, requesterId).append(otherId);
+            adjacencyOf(followers, otherId).append(requesterId);
+            if (FriendshipStatus.CONFIRMED.name().equals(rs.getString("status"))) {
+                adjacencyOf(friends, otherId).append(requesterId);
+                adjacencyOf(followers, requesterId).append(otherId);
+            }
+        });
+        friends.values().forEach(Adjacency::sort);
+        followers.values().forEach(Adjacency::sort);
+    }
+
+    public synchronized void addFriend(long userId, long friendId, FriendshipStatus status) {
+        link(userId, friendId);
+        if (status == FriendshipStatus.CONFIRMED) {
+            link(friendId, userId);
+        }
+    }
+
+    public synchronized void removeFriendship(long userId, long friendId) {
+        unlink(userId, friendId);
+        unlink(friendId, userId);
+    }
+
+    public synchronized void removeUser(long userId) {
+        invalidate(userId);
+        for (long friendId : findFriends(userId)) {
+            unlink(userId, friendId);
+        }
+        Adjacency incoming = followers.get(userId);
+        while (incoming != null && incoming.size > 0) {
+            unlink(incoming.ids[incoming.size - 1], userId);
+        }
+    }
+
+    public synchronized List<Long> findFriends(long userId) {
+        Adjacency adjacency = friends.get(userId);
+        if (adjacency == null) {
+            return new ArrayList<>();
+        }
+        List<Long> found = new ArrayList<>(adjacency.size);
+        for (int i = 0; i < adjacency.size; i++) {
+            found.add(adjacency.ids[i]);
+        }
+        return found;
+    }
+
+    public synchronized List<Long> findMutualFriends(long userId, long otherId) {
+        Adjacency first = friends.get(userId);
+        Adjacency second = friends.get(otherId);
+        List<Long> mutual = new ArrayList<>();
+        if (first == null || second == null) {
+            return mutual;
+        }
+        int i = 0;
+        int j = 0;
+        while (i < first.size && j < second.size) {
+            long left = first.ids[i];
+            long right = second.ids[j];
+            if (left < right) {
+                i++;
+            } else if (left > right) {
+                j++;
+            } else {
+                mutual.add(left);
+                i++;
+                j++;
+            }
+        }
+        return mutual;
+    }
+
+    public synchronized List<Long> suggestFriends(long userId, int count) {
+        if (count <= 0) {
+            return new ArrayList<>();
+        }
+        if (count > suggestionsCapacity) {
+            return rankFriendsOfFriends(userId, count);
+        }
+        List<Long> ranked = suggestions.get(userId);
+        if (ranked == null) {
+            ranked = rankFriendsOfFriends(userId, suggestionsCapacity);
+            suggestions.put(userId, ranked);
+            while (suggestions.size() > suggestionsMaxUsers) {
+                Iterator<Long> eldest = suggestions.keySet().iterator();
+                eldest.next();
+                eldest.remove();
+            }
+        }
+        return new ArrayList<>(ranked.subList(0, Math.min(count, ranked.size())));
+    }
+
+    public synchronized List<Long> findPath(long fromId, long toId, int maxDepth) {
+        List<Long> path = new ArrayList<>();
+        if (fromId == toId) {
+            path.add(fromId);
+            return path;
+        }
+        ParentTable forward = new ParentTable();
+        ParentTable backward = new ParentTable();
+        forward.putIfAbsent(fromId, fromId);
+        backward.putIfAbsent(toId, toId);
+        Adjacency forwardFrontier = new Adjacency();
+        Adjacency backwardFrontier = new Adjacency();
+        forwardFrontier.append(fromId);
+        backwardFrontier.append(toId);
+        int budget = pathMaxExpansions;
+        for (int depth = 0; depth < maxDepth && forwardFrontier.size > 0 && backwardFrontier.size > 0; depth++) {
+            boolean fromSource = forwardFrontier.size <= backwardFrontier.size;
+            Adjacency frontier = fromSource ? forwardFrontier : backwardFrontier;
+            if (frontier.size > budget) {
+                throw new SearchLimitExceededException(String.format(
+                        "Поиск цепочки друзей превысил лимит в %d просмотренных пользователей", pathMaxExpansions));
+            }
+            budget -= frontier.size;
+            Adjacency next = new Adjacency();
+            long meetingId = fromSource
+                    ? expand(frontier, friends, forward, backward, next)
+                    : expand(frontier, followers, backward, forward, next);
+            if (meetingId != ParentTable.EMPTY) {
+                for (long id = meetingId; id != fromId; id = forward.get(id)) {
+                    path.add(id);
+                }
+                path.add(fromId);
+                Collections.reverse(path);
+                for (long id = meetingId; id != toId; ) {
+                    id = backward.get(id);
+                    path.add(id);
+                }
+                return path;
+            }
+            if (fromSource) {
+                forwardFrontier = next;
+            } else {
+                backwardFrontier = next;
+            }
+        }
+        return path;
+    }
+
+    private static long expand(Adjacency frontier, Map<Long, Adjacency> edges, ParentTable visited,
+                               ParentTable opposite, Adjacency next) {
+        for (int i = 0; i < frontier.size; i++) {
+            long id = frontier.ids[i];
+            Adjacency adjacency = edges.get(id);
+            if (adjacency == null) {
+                continue;
+            }
+            for (int j = 0; j < adjacency.size; j++) {
+                long neighbourId = adjacency.ids[j];
+                if (visited.putIfAbsent(neighbourId, id)) {
+                    if (opposite.contains(neighbourId)) {
+                        return neighbourId;
+                    }
+                    next.append(neighbourId);
+                }
+            }
+        }
+        return ParentTable.EMPTY;
+    }
+
+    private List<Long> rankFriendsOfFriends(long userId, int limit) {
+        Adjacency own = friends.get(userId);
+        if (own == null) {
+            return new ArrayList<>();
+        }
+        Map<Long, Integer> mutual = new HashMap<>();
+        int budget = suggestionsMaxEdges;
+        for (int i = 0; i < own.size && budget > 0; i++) {
+            Adjacency next = friends.get(own.ids[i]);
+            if (next == null) {
+                continue;
+            }
+            for (int j = 0; j < next.size && budget > 0; j++, budget--) {
+                long candidateId = next.ids[j];
+                if (candidateId != userId && !own.contains(candidateId)) {
+                    mutual.merge(candidateId, 1, Integer::sum);
+                }
+            }
+        }
+        return mutual.entrySet()
+                .stream()
+                .sorted(MOST_MUTUAL_FIRST)
+                .limit(limit)
+                .map(Map.Entry::getKey)
+                .collect(Collectors.toList());
+    }
+
+    private void link(long userId, long friendId) {
+        if (adjacencyOf(friends, userId).add(friendId)) {
+            adjacencyOf(followers, friendId).add(userId);
+            invalidate(userId);
+        }
+    }
+
+    private void unlink(long userId, long friendId) {
+        if (remove(friends, userId, friendId)) {
+            remove(followers, friendId, userId);
+            invalidate(userId);
+        }
+    }
+
+    private void invalidate(long userId) {
+        suggestions.remove(userId);
+        Adjacency incoming = followers.get(userId);
+        if (incoming != null) {
+            for (int i = 0; i < incoming.size; i++) {
+                suggestions.remove(incoming.ids[i]);
+            }
+        }
+    }
+
+    private static Adjacency adjacencyOf(Map<Long, Adjacency> graph, long userId) {
+        return graph.computeIfAbsent(userId, id -> new Adjacency());
+    }
+
+    private static boolean remove(Map<Long, Adjacency> graph, long userId, long friendId) {
+        Adjacency adjacency = graph.get(userId);
+        if (adjacency == null || !adjacency.remove(friendId)) {
+            return false;
+        }
+        if (adjacency.size == 0) {
+            graph.remove(userId);
+        }
+        return true;
+    }
+
+    private static class ParentTable {
+
+        private static final long EMPTY = Long.MIN_VALUE;
+
+        private long[] keys = emptyKeys(16);
+        private long[] parents = new long[16];
+        private int size;
+
+        boolean putIfAbsent(long key, long parent) {
+            int slot = slotOf(keys, key);
+            if (keys[slot] == key) {
+                return false;
+            }
+            keys[slot] = key;
+            parents[slot] = parent;
+            if (++size * 2 > keys.length) {
+                resize();
+            }
+            return true;
+        }
+
+        boolean contains(long key) {
+            return keys[slotOf(keys, key)] == key;
+        }
+
+        long get(long key) {
+            return parents[slotOf(keys, key)];
+        }
+
+        private void resize() {
+            long[] oldKeys = keys;
+            long[] oldParents = parents;
+            keys = emptyKeys(oldKeys.length * 2);
+            parents = new long[oldKeys.length * 2];
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != EMPTY) {
+                    int slot = slotOf(keys, oldKeys[i]);
+                    keys[slot] = oldKeys[i];
+                    parents[slot] = oldParents[i];
+                }
+            }
+        }
+
+        private static int slotOf(long[] keys, long key) {
+            int mask = keys.length - 1;
+            int slot = (int) (key * 0x9E3779B97F4A7C15L >>> 32) & mask;
+            while (keys[slot] != EMPTY && keys[slot] != key) {
+                slot = (slot + 1) & mask;
+            }
+            return slot;
+        }
+
+        private static long[] emptyKeys(int capacity) {
+            long[] keys = new long[capacity];
+            Arrays.fill(keys, EMPTY);
+            return keys;
+        }
+
+    }
+
+    private static class Adjacency {
+
+        private long[] ids = new long[4];
+        private int size;
+
+        void append(long id) {
+            grow();
+            ids[size++] = id;
+        }
+
+        void sort() {
+            Arrays.sort(ids, 0, size);
+        }
+
+        boolean contains(long id) {
+            return Arrays.binarySearch(ids, 0, size, id) >= 0;
+        }
+
+        boolean add(long id) {
+            int position = Arrays.binarySearch(ids, 0, size, id);
+            if (position >= 0) {
+                return false;
+            }
+            position = -position - 1;
+            grow();
+            System.arraycopy(ids, position, ids, position + 1, size - position);
+            ids[position] = id;
+            size++;
+            return true;
+        }
+
+        boolean remove(long id) {
+            int position = Arrays.binarySearch(ids, 0, size, id);
+            if (position < 0) {
+                return false;
+            }
+            System.arraycopy(ids, position + 1, ids, position, size - position - 1);
+            size--;
+            return true;
+        }
+
+        private void grow() {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,171 @@
+package ru.yandex.practicum.filmorate.storage.index;
+
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.Event;
+import java.util.*;
+
+@Component
+public class FriendsTimelineCache {
+
+    @Getter
+    private final int capacity;
+    private final int maxUsers;
+    private final LinkedHashMap<Long, Timeline> timelines = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<Long, Set<Timeline>> followers = new HashMap<>();
+
+    @Autowired
+    public FriendsTimelineCache(@Value("${filmorate.timeline.capacity:200}") int capacity,
+                                @Value("${filmorate.timeline.max-users:10000}") int maxUsers) {
+        this.capacity = capacity;
+        this.maxUsers = maxUsers;
+    }
+
+    public synchronized boolean contains(long userId) {
+        return timelines.containsKey(userId);
+    }
+
+    public synchronized Optional<List<Event>> findPage(long userId, long beforeEventId, int limit) {
+        Timeline timeline = timelines.get(userId);
+        if (timeline == null || !timeline.isLoaded()) {
+            return Optional.empty();
+        }
+        return timeline.page(beforeEventId, limit);
+    }
+
+    public synchronized void register(long userId, Collection<Long> friendIds) {
+        evict(userId);
+        Timeline timeline = new Timeline(userId, new HashSet<>(friendIds), capacity);
+        timelines.put(userId, timeline);
+        for (long friendId : timeline.getFriendIds()) {
+            followers.computeIfAbsent(friendId, id -> new HashSet<>()).add(timeline);
+        }
+        while (timelines.size() > maxUsers) {
+            Iterator<Timeline> eldest = timelines.values().iterator();
+            unlink(eldest.next());
+            eldest.remove();
+        }
+    }
+
+    public synchronized void fill(long userId, List<Event> latest) {
+        Timeline timeline = timelines.get(userId);
+        if (timeline != null) {
+            timeline.load(latest);
+        }
+    }
+
+    public synchronized void publish(Event event) {
+        Set<Timeline> warm = followers.get(event.getUserId());
+        if (warm != null) {
+            warm.forEach(timeline -> timeline.push(event));
+        }
+    }
+
+    public synchronized void evict(long userId) {
+        Timeline timeline = timelines.remove(userId);
+        if (timeline != null) {
+            unlink(timeline);
+        }
+    }
+
+    public synchronized void evictUser(long userId) {
+        evict(userId);
+        Set<Timeline> warm = followers.get(userId);
+        if (warm != null) {
+            new ArrayList<>(warm).forEach(timeline -> evict(timeline.getUserId()));
+        }
+    }
+
+    private void unlink(Timeline timeline) {
+        for (long friendId : timeline.getFriendIds()) {
+            Set<Timeline> warm = followers.get(friendId);
+            if (warm != null) {
+                warm.remove(timeline);
+                if (warm.isEmpty()) {
+                    followers.remove(friendId);
+                }
+            }
+        }
+    }
+
+    private static class Timeline {
+
+        @Getter
+        private final long userId;
+        @Getter
+        private final Set<Long> friendIds;
+        private final Event[] ring;
+        private int head;
+        private int size;
+        @Getter
+        private boolean loaded;
+        private boolean complete;
+
+        Timeline(long userId, Set<Long> friendIds, int capacity) {
+            this.userId = userId;
+            this.friendIds = friendIds;
+            this.ring = new Event[capacity];
+        }
+
+        void push(Event event) {
+            if (ring.length == 0 || size > 0 && get(0).getEventId() >= event.getEventId()) {
+                return;
+            }
+            ring[head] = event;
+            head = (head + 1) % ring.length;
+            if (size < ring.length) {
+                size++;
+            } else {
+                complete = false;
+            }
+        }
+
+        void load(List<Event> latest) {
+            NavigableMap<Long, Event> merged = new TreeMap<>();
+            latest.forEach(event -> merged.put(event.getEventId(), event));
+            for (int i = 0; i < size; i++) {
+                merged.put(get(i).getEventId(), get(i));
+            }
+            Arrays.fill(ring, null);
+            head = 0;
+            size = 0;
+            merged.descendingMap()
+                    .values()
+                    .stream()
+                    .limit(ring.length)
+                    .sorted(Comparator.comparingLong(Event::getEventId))
+                    .forEach(this::push);
+            complete = latest.size() < ring.length && merged.size() <= ring.length;
+            loaded = true;
+        }
+
+        Optional<List<Event>> page(long beforeEventId, int limit) {
+            int low = 0;
+            int high = size;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (get(middle).getEventId() >= beforeEventId) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            List<Event> page = new ArrayList<>(Math.min(limit, size - low));
+            for (int i = low; i < size && page.size() < limit; i++) {
+                page.add(get(i));
+            }
+            if (page.size() < limit && !complete) {
+                return Optional.empty();
+            }
+            return Optional.of(page);
+        }
+
+        private Event get(int newestFirstIndex) {
+            return ring[Math.floorMod(head - 1 - newestFirstIndex, ring.length)];
+        }
+
+    }
+
+}
@@ -0,0 +1,107 @@
+package ru.yandex.practicum.filmorate.storage.index;
+
+import com.google.common.hash.BloomFilter;
+import com.google.common.hash.Funnels;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import javax.annotation.PostConstruct;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+@Component
+public class KnownIdsIndex {
+
+    private static final double FALSE_POSITIVE_PROBABILITY = 0.01;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final long minExpectedIds;
+    private volatile GrowingFilter films;
+    private volatile GrowingFilter users;
+    private volatile GrowingFilter reviews;
+
+    @Autowired
+    public KnownIdsIndex(JdbcTemplate jdbcTemplate,
+                         @Value("${filmorate.known-ids.min-expected:100000}") long minExpectedIds) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.minExpectedIds = minExpectedIds;
+    }
+
+    @PostConstruct
+    public void rebuild() {
+        films = load("films", "film_id");
+        users = load("users", "user_id");
+        reviews = load("review", "review_id");
+    }
+
+    public boolean mightContainFilm(long id) {
+        return films.mightContain(id);
+    }
+
+    public boolean mightContainUser(long id) {
+        return users.mightContain(id);
+    }
+
+    public boolean mightContainReview(long id) {
+        return reviews.mightContain(id);
+    }
+
+    public void addFilm(long id) {
+        films.put(id);
+    }
+
+    public void addUser(long id) {
+        users.put(id);
+    }
+
+    public void addReview(long id) {
+        reviews.put(id);
+    }
+
+    private GrowingFilter load(String table, String idColumn) {
+        Long count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + table, Long.class);
+        GrowingFilter filter = new GrowingFilter(Math.max(minExpectedIds, count == null ? 0 : count * 2));
+        jdbcTemplate.query("SELECT " + idColumn + " FROM " + table, rs -> {
+            filter.put(rs.getLong(1));
+        });
+        return filter;
+    }
+
+    private static class GrowingFilter {
+
+        private final List<BloomFilter<Long>> filters = new CopyOnWriteArrayList<>();
+        private long capacity;
+        private double falsePositiveProbability;
+        private long inserted;
+
+        GrowingFilter(long capacity) {
+            this.capacity = capacity;
+            this.falsePositiveProbability = FALSE_POSITIVE_PROBABILITY / 2;
+            filters.add(BloomFilter.create(Funnels.longFunnel(), capacity, falsePositiveProbability));
+        }
+
+        boolean mightContain(long id) {
+            for (BloomFilter<Long> filter : filters) {
+                if (filter.mightContain(id)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        synchronized void put(long id) {
+            if (inserted >= capacity) {
+                capacity *= 2;
+                falsePositiveProbability /= 2;
+                inserted = 0;
+                filters.add(BloomFilter.create(Funnels.longFunnel(), capacity, falsePositiveProbability));
+            }
+            if (filters.get(filters.size() - 1).put(id)) {
+                inserted++;
+            }
+        }
+
+    }
+
+}
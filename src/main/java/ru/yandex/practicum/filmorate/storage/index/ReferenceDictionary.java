@@ -0,0 +1,85 @@
+package ru.yandex.practicum.filmorate.storage.index;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.storage.dao.GenreStorage;
+import ru.yandex.practicum.filmorate.storage.dao.MpaStorage;
+import javax.annotation.PostConstruct;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.IntFunction;
+import java.util.function.ToIntFunction;
+
+@Component
+public class ReferenceDictionary {
+
+    private final GenreStorage genreStorage;
+    private final MpaStorage mpaStorage;
+    private volatile Entries<Genre> genres = new Entries<>(List.of(), new Genre[0]);
+    private volatile Entries<Mpa> ratings = new Entries<>(List.of(), new Mpa[0]);
+
+    @Autowired
+    public ReferenceDictionary(GenreStorage genreStorage, MpaStorage mpaStorage) {
+        this.genreStorage = genreStorage;
+        this.mpaStorage = mpaStorage;
+    }
+
+    @PostConstruct
+    public void reload() {
+        load(genreStorage.findAll(), mpaStorage.findAll());
+    }
+
+    public void load(List<Genre> genreList, List<Mpa> mpaList) {
+        genres = Entries.of(genreList, Genre::getId, Genre[]::new);
+        ratings = Entries.of(mpaList, Mpa::getId, Mpa[]::new);
+    }
+
+    public List<Genre> getGenres() {
+        return genres.getAll();
+    }
+
+    public Optional<Genre> findGenre(long id) {
+        return genres.find(id);
+    }
+
+    public List<Mpa> getRatings() {
+        return ratings.getAll();
+    }
+
+    public Optional<Mpa> findMpa(long id) {
+        return ratings.find(id);
+    }
+
+    private static class Entries<T> {
+
+        private final List<T> all;
+        private final T[] byId;
+
+        Entries(List<T> all, T[] byId) {
+            this.all = all;
+            this.byId = byId;
+        }
+
+        static <T> Entries<T> of(List<T> entries, ToIntFunction<T> id, IntFunction<T[]> arrayFactory) {
+            int maxId = entries.stream().mapToInt(id).max().orElse(0);
+            T[] byId = arrayFactory.apply(maxId + 1);
+            entries.forEach(entry -> byId[id.applyAsInt(entry)] = entry);
+            return new Entries<>(List.copyOf(entries), byId);
+        }
+
+        List<T> getAll() {
+            return all;
+        }
+
+        Optional<T> find(long id) {
+            if (id <= 0 || id >= byId.length) {
+                return Optional.empty();
+            }
+            return Optional.ofNullable(byId[(int) id]);
+        }
+
+    }
+
+}
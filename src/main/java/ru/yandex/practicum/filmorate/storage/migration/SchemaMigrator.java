@@ -0,0 +1,145 @@
+package ru.yandex.practicum.filmorate.storage.migration;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.core.io.support.ResourcePatternResolver;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.stereotype.Component;
+import javax.annotation.PostConstruct;
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.CRC32;
+
+@Slf4j
+@Component
+public class SchemaMigrator {
+
+    private static final Pattern SCRIPT_NAME = Pattern.compile("V(\\d+)__(\\w+)\\.sql");
+
+    private final DataSource dataSource;
+    private final JdbcTemplate jdbcTemplate;
+    private final ResourcePatternResolver resolver = new PathMatchingResourcePatternResolver();
+    private final String locations;
+    private final String seed;
+    private final String legacyReset;
+
+    @Autowired
+    public SchemaMigrator(DataSource dataSource,
+                          @Value("${filmorate.migrations.locations:classpath:db/migration/*.sql}") String locations,
+                          @Value("${filmorate.migrations.seed:classpath:data.sql}") String seed,
+                          @Value("${filmorate.migrations.legacy-reset:classpath:db/legacy/drop_legacy_schema.sql}")
+                          String legacyReset) {
+        this.dataSource = dataSource;
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.locations = locations;
+        this.seed = seed;
+        this.legacyReset = legacyReset;
+    }
+
+    @PostConstruct
+    public synchronized void migrate() {
+        long started = System.nanoTime();
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS schema_history (" +
+                "version int PRIMARY KEY, " +
+                "description varchar(255) NOT NULL, " +
+                "checksum bigint NOT NULL, " +
+                "installed_on timestamp NOT NULL)");
+        Map<Integer, Long> applied = new HashMap<>();
+        jdbcTemplate.query("SELECT version, checksum FROM schema_history", rs -> {
+            applied.put(rs.getInt("version"), rs.getLong("checksum"));
+        });
+        if (applied.isEmpty() && isLegacySchema()) {
+            log.warn("Найдена схема БД без истории миграций, она пересоздаётся с базовой версии");
+            new ResourceDatabasePopulator(resolver.getResource(legacyReset)).execute(dataSource);
+        }
+        int appliedNow = 0;
+        for (var migration : findMigrations().entrySet()) {
+            int version = migration.getKey();
+            Resource script = migration.getValue();
+            long checksum = checksum(script);
+            if (applied.containsKey(version)) {
+                validate(version, applied.get(version), checksum);
+                continue;
+            }
+            String description = description(script);
+            new ResourceDatabasePopulator(script).execute(dataSource);
+            jdbcTemplate.update("INSERT INTO schema_history (version, description, checksum, installed_on) " +
+                    "VALUES (?, ?, ?, ?)", version, description, checksum, Timestamp.from(Instant.now()));
+            log.info("Применена миграция схемы V{}: {}", version, description);
+            appliedNow++;
+        }
+        Resource seedScript = resolver.getResource(seed);
+        if (seedScript.exists()) {
+            new ResourceDatabasePopulator(seedScript).execute(dataSource);
+        }
+        log.info("Схема БД актуальна: применено миграций {}, проверено {}, {} мс",
+                appliedNow, applied.size(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+    }
+
+    private boolean isLegacySchema() {
+        Integer tables = jdbcTemplate.queryForObject("SELECT count(*) FROM information_schema.tables " +
+                "WHERE table_schema = CURRENT_SCHEMA AND table_name = 'FILMS'", Integer.class);
+        return tables != null && tables > 0;
+    }
+
+    private void validate(int version, long recorded, long checksum) {
+        if (recorded != checksum) {
+            throw new IllegalStateException(String.format(
+                    "Миграция V%d изменена после применения: контрольная сумма %d, в БД %d",
+                    version, checksum, recorded));
+        }
+    }
+
+    private TreeMap<Integer, Resource> findMigrations() {
+        TreeMap<Integer, Resource> migrations = new TreeMap<>();
+        for (Resource script : resolve()) {
+            Matcher matcher = SCRIPT_NAME.matcher(script.getFilename());
+            if (!matcher.matches()) {
+                continue;
+            }
+            Resource duplicate = migrations.put(Integer.parseInt(matcher.group(1)), script);
+            if (duplicate != null) {
+                throw new IllegalStateException("Повторяющаяся версия миграции: " + script.getFilename());
+            }
+        }
+        return migrations;
+    }
+
+    private Resource[] resolve() {
+        try {
+            return resolver.getResources(locations);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static long checksum(Resource script) {
+        try (var input = script.getInputStream()) {
+            String content = new String(input.readAllBytes(), StandardCharsets.UTF_8);
+            CRC32 crc = new CRC32();
+            crc.update(content.replace("\r", "").getBytes(StandardCharsets.UTF_8));
+            return crc.getValue();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static String description(Resource script) {
+        return SCRIPT_NAME.matcher(script.getFilename()).replaceFirst("$2").replace('_', ' ');
+    }
+
+}
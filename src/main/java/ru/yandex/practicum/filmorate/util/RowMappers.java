@@ -25,7 +25,8 @@ public class RowMappers {
             .description(resultSet.getString("description"))
             .releaseDate(resultSet.getDate("release_date").toLocalDate())
             .duration(resultSet.getInt("duration"))
-            .mpa(new Mpa(resultSet.getInt("mpa_id")))
+            .mpa(Mpa.of(resultSet.getInt("mpa_id")))
+            .likeCount(resultSet.getInt("like_count"))
             .build();
     public static final RowMapper<Review> REVIEW_ROW_MAPPER = (ResultSet resultSet, int rowNum) -> Review.builder()
             .reviewId(resultSet.getLong("review_id"))
@@ -37,15 +38,15 @@ public class RowMappers {
             .reviewDate(resultSet.getObject("review_date", LocalDateTime.class))
             .build();
     public static final RowMapper<Mpa> MPA_ROW_MAPPER = (ResultSet rs, int rowNum) ->
-            new Mpa(rs.getInt("mpa_id"));
+            Mpa.of(rs.getInt("mpa_id"));
     public static final RowMapper<Genre> GENRE_ROW_MAPPER = (ResultSet rs, int rowNum) ->
-            new Genre(rs.getInt("genre_id"));
+            Genre.of(rs.getInt("genre_id"));
     public static final RowMapper<Like> LIKE_ROW_MAPPER = ((ResultSet rs, int rowNum) ->
             new Like(rs.getLong("film_id"),
                     rs.getLong("user_id")));
     public static final RowMapper<Friendship> FRIENDSHIP_ROW_MAPPER = ((ResultSet rs, int rowNum) ->
-            new Friendship(rs.getLong("user_id"),
-                    rs.getLong("friend_id")));
+            new Friendship(rs.getLong("requester_id"),
+                    rs.getLong("min_id") + rs.getLong("max_id") - rs.getLong("requester_id")));
     public static final RowMapper<Event> EVENT_ROW_MAPPER = ((ResultSet rs, int rowNum) ->
             Event.builder().eventId(rs.getLong("event_id"))
                     .timestamp(rs.getLong("timestamp"))
@@ -1,18 +1,22 @@
 package ru.yandex.practicum.filmorate.util;
 
+import java.util.Locale;
+
 public class Statements {
 
     private Statements() {
     }
 
     public static final String STATEMENT_FOR_FILM =
-            "SELECT films.film_id, films.name as film_name, description, release_date, duration, mpa_id, " +
-            "genres.genre_id as genre_id, directors.id as director_id, directors.name as director_name, " +
-            "likes.user_id FROM films " +
-            "LEFT JOIN film_genre ON film_genre.film_id = films.film_id " +
-            "LEFT JOIN genres ON film_genre.genre_id = genres.genre_id " +
-            "LEFT JOIN film_directors ON film_directors.film_id = films.film_id " +
-            "LEFT JOIN directors ON directors.id = film_directors.director_id " +
-            "LEFT JOIN likes ON likes.film_id = films.film_id";
+            "SELECT film_id, name, description, release_date, duration, mpa_id, like_count FROM films";
+
+    public static final int IN_CLAUSE_BATCH_SIZE = 1000;
+
+    public static String containsPattern(String substring) {
+        return "%" + substring.toLowerCase(Locale.ROOT)
+                .replace("\\", "\\\\")
+                .replace("%", "\\%")
+                .replace("_", "\\_") + "%";
+    }
 
 }
@@ -0,0 +1,111 @@
+CREATE TABLE IF NOT EXISTS mpa
+(
+    mpa_id int GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    name   varchar(30) NOT NULL UNIQUE
+);
+
+CREATE TABLE IF NOT EXISTS films
+(
+    film_id      bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    name         varchar(255)  NOT NULL,
+    description  varchar(1000) NOT NULL,
+    release_date date          NOT NULL,
+    duration     int           NOT NULL,
+    mpa_id       int REFERENCES mpa (mpa_id) ON DELETE CASCADE,
+    like_count   int           NOT NULL DEFAULT 0,
+    name_lower   varchar(255) GENERATED ALWAYS AS (LOWER(name)),
+    CONSTRAINT release_after_first_film CHECK (release_date > '1895-12-27'),
+    CONSTRAINT film_not_blank_fields CHECK (name <> '' AND description <> '' AND duration > 0)
+);
+
+CREATE TABLE IF NOT EXISTS genres
+(
+    genre_id int GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    name     varchar(255) NOT NULL UNIQUE
+);
+
+CREATE TABLE IF NOT EXISTS directors
+(
+    id         int GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    name       varchar(255) NOT NULL,
+    name_lower varchar(255) GENERATED ALWAYS AS (LOWER(name))
+);
+
+CREATE TABLE IF NOT EXISTS film_directors
+(
+    film_id     bigint REFERENCES films (film_id) ON delete CASCADE,
+    director_id int REFERENCES directors (id) ON delete CASCADE,
+    CONSTRAINT pk_film_directors PRIMARY KEY (film_id, director_id)
+);
+
+CREATE TABLE IF NOT EXISTS film_genre
+(
+    film_id  bigint REFERENCES films (film_id) ON delete CASCADE,
+    genre_id int REFERENCES genres (genre_id) ON delete CASCADE,
+    CONSTRAINT pk_fields_film_genre PRIMARY KEY (film_id, genre_id)
+);
+
+CREATE TABLE IF NOT EXISTS users
+(
+    user_id  bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    login    varchar(100) NOT NULL UNIQUE,
+    email    varchar(100) NOT NULL UNIQUE,
+    name     varchar(100),
+    birthday date         NOT NULL,
+    CONSTRAINT users_not_blank_fields CHECK (login <> '' AND email <> ''),
+    CONSTRAINT birthday_past CHECK (birthday <= NOW())
+);
+
+CREATE TABLE IF NOT EXISTS friends
+(
+    user_id   bigint NOT NULL REFERENCES users (user_id) ON DELETE CASCADE,
+    friend_id bigint NOT NULL REFERENCES users (user_id) ON DELETE CASCADE,
+    confirmed boolean DEFAULT false,
+    CONSTRAINT pk_fields_friends PRIMARY KEY (user_id, friend_id)
+);
+
+CREATE TABLE IF NOT EXISTS likes
+(
+    film_id bigint REFERENCES films (film_id) ON DELETE CASCADE,
+    user_id bigint REFERENCES users (user_id) ON DELETE CASCADE,
+    CONSTRAINT pk_fields_likes PRIMARY KEY (film_id, user_id)
+);
+
+CREATE TABLE IF NOT EXISTS review
+(
+    review_Id   bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    film_id     bigint REFERENCES films (film_id) ON DELETE CASCADE,
+    user_id     bigint REFERENCES users (user_id) ON DELETE Cascade,
+    content     varchar(400),
+    isPositive  boolean DEFAULT true,
+    useful      integer DEFAULT 0,
+    review_date datetime NOT NULL
+        CONSTRAINT text_not_blank_fields CHECK (content <> '')
+);
+
+CREATE TABLE IF NOT EXISTS review_votes
+(
+    review_id bigint NOT NULL REFERENCES review (review_Id) ON DELETE CASCADE,
+    user_id   bigint NOT NULL REFERENCES users (user_id) ON DELETE CASCADE,
+    vote      smallint NOT NULL,
+    CONSTRAINT pk_review_votes PRIMARY KEY (review_id, user_id),
+    CONSTRAINT review_vote_value CHECK (vote IN (-1, 1))
+);
+
+CREATE TABLE IF NOT EXISTS events
+(
+    event_id   bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    timestamp  bigint      NOT NULL,
+    user_id    bigint REFERENCES users (user_id) ON DELETE CASCADE,
+    entity_id  bigint      NOT NULL,
+    event_type varchar(50) NOT NULL,
+    operation  varchar(50) NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS film_name_index ON films (name);
+CREATE INDEX IF NOT EXISTS film_release_date_index ON films (release_date);
+CREATE INDEX IF NOT EXISTS film_like_count_index ON films (like_count);
+CREATE INDEX IF NOT EXISTS director_name_index ON directors (name);
+CREATE INDEX IF NOT EXISTS film_name_lower_index ON films (name_lower);
+CREATE INDEX IF NOT EXISTS director_name_lower_index ON directors (name_lower);
+CREATE INDEX IF NOT EXISTS event_user_id_index ON events (user_id, event_id);
\ No newline at end of file
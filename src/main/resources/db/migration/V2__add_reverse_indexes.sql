@@ -0,0 +1,2 @@
+CREATE INDEX IF NOT EXISTS like_user_id_index ON likes (user_id, film_id);
+CREATE INDEX IF NOT EXISTS friend_friend_id_index ON friends (friend_id, user_id);
@@ -0,0 +1,25 @@
+CREATE TABLE IF NOT EXISTS friendships
+(
+    min_id       bigint      NOT NULL REFERENCES users (user_id) ON DELETE CASCADE,
+    max_id       bigint      NOT NULL REFERENCES users (user_id) ON DELETE CASCADE,
+    requester_id bigint      NOT NULL,
+    status       varchar(16) NOT NULL DEFAULT 'PENDING',
+    CONSTRAINT pk_fields_friendships PRIMARY KEY (min_id, max_id),
+    CONSTRAINT friendship_canonical_pair CHECK (min_id < max_id),
+    CONSTRAINT friendship_requester_in_pair CHECK (requester_id IN (min_id, max_id)),
+    CONSTRAINT friendship_known_status CHECK (status IN ('PENDING', 'CONFIRMED'))
+);
+
+CREATE INDEX IF NOT EXISTS friendship_max_id_index ON friendships (max_id, min_id);
+
+INSERT INTO friendships (min_id, max_id, requester_id, status)
+SELECT LEAST(user_id, friend_id),
+       GREATEST(user_id, friend_id),
+       MIN(user_id),
+       CASE WHEN COUNT(*) > 1 OR MAX(CASE WHEN confirmed THEN 1 ELSE 0 END) = 1
+            THEN 'CONFIRMED' ELSE 'PENDING' END
+FROM friends
+WHERE user_id <> friend_id
+GROUP BY LEAST(user_id, friend_id), GREATEST(user_id, friend_id);
+
+DROP TABLE friends;
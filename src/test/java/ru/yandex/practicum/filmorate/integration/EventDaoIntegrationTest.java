@@ -17,8 +17,11 @@ import ru.yandex.practicum.filmorate.storage.dao.impl.UserDbStorage;
 import static org.assertj.core.api.Assertions.assertThat;
 import java.time.Instant;
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @SpringBootTest
 @AutoConfigureTestDatabase
@@ -93,4 +96,91 @@ class EventDaoIntegrationTest {
                 .contains(event);
     }
 
-}
\ No newline at end of file
+    @Test
+    void testSaveEvents_writtenInBatchWithGeneratedIds() {
+        final List<Event> saved = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            saved.add(eventStorage.save(Event.builder()
+                    .timestamp(Instant.now().toEpochMilli())
+                    .eventType(EventType.LIKE)
+                    .operation(Operation.ADD)
+                    .userId(user.getId())
+                    .entityId(i + 1)
+                    .build()));
+        }
+        final long writtenBefore = eventStorage.getStats().getWritten();
+
+        eventStorage.flush();
+
+        assertThat(eventStorage.getStats().getQueued()).isZero();
+        assertThat(eventStorage.getStats().getWritten()).isGreaterThanOrEqualTo(writtenBefore);
+        assertThat(eventStorage.findAllByUserId(user.getId()))
+                .hasSize(5)
+                .containsExactlyElementsOf(saved);
+        assertThat(saved).allMatch(event -> event.getEventId() > 0);
+    }
+
+    @Test
+    void testStreamByUserId_returnPageAfterCursor() {
+        final List<Event> saved = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            saved.add(eventStorage.save(Event.builder()
+                    .timestamp(Instant.now().toEpochMilli())
+                    .eventType(EventType.FRIEND)
+                    .operation(Operation.ADD)
+                    .userId(user.getId())
+                    .entityId(i + 1)
+                    .build()));
+        }
+        eventStorage.flush();
+
+        final List<Event> page;
+        try (Stream<Event> events = eventStorage.streamByUserId(user.getId(), saved.get(1).getEventId(), 2)) {
+            page = events.collect(Collectors.toList());
+        }
+
+        assertThat(page).containsExactly(saved.get(2), saved.get(3));
+    }
+
+    @Test
+    void testFindLatestByUserIds_mergeUsersNewestFirst() {
+        final User other = userStorage.save(User.builder()
+                .login("Other")
+                .email("other@yandex.ru")
+                .name("Other")
+                .birthday(LocalDate.of(1990, 1, 1))
+                .build());
+        final List<Event> saved = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            saved.add(eventStorage.save(Event.builder()
+                    .timestamp(Instant.now().toEpochMilli())
+                    .eventType(EventType.LIKE)
+                    .operation(Operation.ADD)
+                    .userId(i % 2 == 0 ? user.getId() : other.getId())
+                    .entityId(i + 1)
+                    .build()));
+        }
+        eventStorage.flush();
+
+        final List<Event> latest = eventStorage.findLatestByUserIds(List.of(user.getId(), other.getId()),
+                saved.get(5).getEventId(), 3);
+
+        assertThat(latest).containsExactly(saved.get(4), saved.get(3), saved.get(2));
+    }
+
+    @Test
+    void testFindLatestByUserIds_seeQueuedEventsWithoutExplicitFlush() {
+        final Event saved = eventStorage.save(Event.builder()
+                .timestamp(Instant.now().toEpochMilli())
+                .eventType(EventType.FRIEND)
+                .operation(Operation.ADD)
+                .userId(user.getId())
+                .entityId(1)
+                .build());
+
+        final List<Event> latest = eventStorage.findLatestByUserIds(List.of(user.getId()), Long.MAX_VALUE, 10);
+
+        assertThat(latest).containsExactly(saved);
+    }
+
+}
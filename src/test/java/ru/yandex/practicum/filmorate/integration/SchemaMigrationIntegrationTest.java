@@ -0,0 +1,185 @@
+package ru.yandex.practicum.filmorate.integration;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.test.annotation.DirtiesContext;
+import ru.yandex.practicum.filmorate.storage.migration.SchemaMigrator;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Objects;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@SpringBootTest
+@AutoConfigureTestDatabase
+@RequiredArgsConstructor(onConstructor__ = @Autowired)
+class SchemaMigrationIntegrationTest {
+
+    static final Pattern SCAN_COUNT = Pattern.compile("scanCount: (\\d+)");
+    static final int USERS = 200;
+    static final int FILMS = 20;
+    static final int LINKS_PER_USER = 5;
+
+    final SchemaMigrator migrator;
+    final JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    void afterEach() {
+        jdbcTemplate.update("DELETE FROM friendships");
+        jdbcTemplate.update("DELETE FROM users");
+        jdbcTemplate.update("DELETE FROM films");
+    }
+
+    @Test
+    void testMigrate_appliesEveryVersionOnce() {
+        final Integer genres = jdbcTemplate.queryForObject("SELECT count(*) FROM genres", Integer.class);
+
+        migrator.migrate();
+
+        assertThat(jdbcTemplate.queryForList("SELECT version FROM schema_history ORDER BY version", Integer.class))
+                .containsExactly(1, 2, 3);
+        assertThat(jdbcTemplate.queryForObject("SELECT count(*) FROM genres", Integer.class)).isEqualTo(genres);
+    }
+
+    @Test
+    void testMigrate_failsWhenAppliedScriptChanged() {
+        final Long checksum = jdbcTemplate.queryForObject(
+                "SELECT checksum FROM schema_history WHERE version = 2", Long.class);
+        assertThat(checksum).isNotNull();
+        jdbcTemplate.update("UPDATE schema_history SET checksum = ? WHERE version = 2", checksum + 1);
+        try {
+            assertThrows(IllegalStateException.class, migrator::migrate);
+        } finally {
+            jdbcTemplate.update("UPDATE schema_history SET checksum = ? WHERE version = 2", checksum);
+        }
+        migrator.migrate();
+    }
+
+    @Test
+    @DirtiesContext
+    void testMigrate_rebuildsDatabaseCreatedByLegacySchemaScript() {
+        jdbcTemplate.update("DELETE FROM schema_history");
+        new ResourceDatabasePopulator(new ClassPathResource("db/legacy/drop_legacy_schema.sql"),
+                new ClassPathResource("db/legacy/schema.sql"))
+                .execute(Objects.requireNonNull(jdbcTemplate.getDataSource()));
+        jdbcTemplate.update("INSERT INTO mpa (name) VALUES ('G')");
+        jdbcTemplate.update("INSERT INTO films (name, description, release_date, duration, mpa_id) " +
+                "VALUES ('film', 'description', ?, 100, 1)", Date.valueOf(LocalDate.of(2000, 1, 1)));
+
+        migrator.migrate();
+
+        assertThat(jdbcTemplate.queryForList("SELECT version FROM schema_history ORDER BY version", Integer.class))
+                .containsExactly(1, 2, 3);
+        assertThat(jdbcTemplate.queryForList("SELECT table_name || '.' || column_name " +
+                "FROM information_schema.columns WHERE table_schema = CURRENT_SCHEMA AND column_name IN ('LIKE_COUNT', 'NAME_LOWER')", String.class))
+                .containsExactlyInAnyOrder("FILMS.LIKE_COUNT", "FILMS.NAME_LOWER", "DIRECTORS.NAME_LOWER");
+        assertThat(jdbcTemplate.queryForObject("SELECT count(*) FROM films", Integer.class)).isZero();
+        assertThat(jdbcTemplate.queryForObject("SELECT count(*) FROM mpa", Integer.class)).isPositive();
+        assertThat(jdbcTemplate.queryForObject("SELECT count(*) FROM information_schema.tables " +
+                "WHERE table_name = 'FRIENDSHIPS'", Integer.class)).isOne();
+    }
+
+    @Test
+    void testCanonicalFriendships_rewriteDirectedRowsOncePerPair() {
+        for (int i = 0; i < 3; i++) {
+            jdbcTemplate.update("INSERT INTO users (login, email, name, birthday) VALUES (?, ?, ?, ?)",
+                    "user" + i, "user" + i + "@yandex.ru", "user" + i, Date.valueOf(LocalDate.of(1990, 1, 1)));
+        }
+        List<Long> userIds = jdbcTemplate.queryForList("SELECT user_id FROM users ORDER BY user_id", Long.class);
+        final long first = userIds.get(0);
+        final long second = userIds.get(1);
+        final long third = userIds.get(2);
+        jdbcTemplate.execute("CREATE TABLE friends (user_id bigint, friend_id bigint, confirmed boolean DEFAULT false)");
+        jdbcTemplate.update("INSERT INTO friends (user_id, friend_id) VALUES (?, ?)", second, first);
+        jdbcTemplate.update("INSERT INTO friends (user_id, friend_id, confirmed) VALUES (?, ?, true)", first, third);
+        jdbcTemplate.update("INSERT INTO friends (user_id, friend_id) VALUES (?, ?)", second, third);
+        jdbcTemplate.update("INSERT INTO friends (user_id, friend_id) VALUES (?, ?)", third, second);
+
+        new ResourceDatabasePopulator(new ClassPathResource("db/migration/V3__canonical_friendships.sql"))
+                .execute(Objects.requireNonNull(jdbcTemplate.getDataSource()));
+
+        assertThat(jdbcTemplate.queryForList("SELECT min_id, max_id, requester_id, status FROM friendships " +
+                "ORDER BY min_id, max_id"))
+                .extracting(row -> List.of(row.get("min_id"), row.get("max_id"), row.get("requester_id"),
+                        row.get("status")))
+                .containsExactly(
+                        List.of(first, second, second, "PENDING"),
+                        List.of(first, third, first, "CONFIRMED"),
+                        List.of(second, third, second, "CONFIRMED"));
+        assertThat(jdbcTemplate.queryForObject("SELECT count(*) FROM information_schema.tables " +
+                "WHERE table_name = 'FRIENDS'", Integer.class)).isZero();
+    }
+
+    @Test
+    void testReverseIndexes_scanOnlyRowsOfRequestedUser() {
+        List<Long> userIds = insertUsersWithLikesAndFriends();
+        final long probe = userIds.get(USERS / 2);
+        final String likesByUser = "SELECT film_id FROM likes WHERE user_id = " + probe;
+        final String friendsByFriend = "SELECT min_id FROM friendships WHERE max_id = " + probe;
+
+        final long likesIndexed = scanCount(likesByUser);
+        final long friendsIndexed = scanCount(friendsByFriend);
+        jdbcTemplate.execute("DROP INDEX like_user_id_index");
+        jdbcTemplate.execute("DROP INDEX friendship_max_id_index");
+        final long likesScanned;
+        final long friendsScanned;
+        try {
+            likesScanned = scanCount(likesByUser);
+            friendsScanned = scanCount(friendsByFriend);
+        } finally {
+            jdbcTemplate.execute("CREATE INDEX like_user_id_index ON likes (user_id, film_id)");
+            jdbcTemplate.execute("CREATE INDEX friendship_max_id_index ON friendships (max_id, min_id)");
+        }
+
+        assertThat(likesIndexed).isLessThanOrEqualTo(LINKS_PER_USER + 1);
+        assertThat(friendsIndexed).isLessThanOrEqualTo(LINKS_PER_USER + 1);
+        assertThat(likesScanned).isGreaterThanOrEqualTo(USERS * LINKS_PER_USER / 2);
+        assertThat(friendsScanned).isGreaterThanOrEqualTo(USERS * LINKS_PER_USER / 2);
+    }
+
+    private List<Long> insertUsersWithLikesAndFriends() {
+        for (int i = 0; i < FILMS; i++) {
+            jdbcTemplate.update("INSERT INTO films (name, description, release_date, duration, mpa_id) " +
+                    "VALUES (?, 'description', ?, 100, 1)", "film" + i, Date.valueOf(LocalDate.of(2000, 1, 1)));
+        }
+        for (int i = 0; i < USERS; i++) {
+            jdbcTemplate.update("INSERT INTO users (login, email, name, birthday) VALUES (?, ?, ?, ?)",
+                    "user" + i, "user" + i + "@yandex.ru", "user" + i, Date.valueOf(LocalDate.of(1990, 1, 1)));
+        }
+        List<Long> filmIds = jdbcTemplate.queryForList("SELECT film_id FROM films ORDER BY film_id", Long.class);
+        List<Long> userIds = jdbcTemplate.queryForList("SELECT user_id FROM users ORDER BY user_id", Long.class);
+        for (int i = 0; i < USERS; i++) {
+            for (int j = 1; j <= LINKS_PER_USER; j++) {
+                jdbcTemplate.update("INSERT INTO likes (film_id, user_id) VALUES (?, ?)",
+                        filmIds.get((i + j) % FILMS), userIds.get(i));
+                if (i + j < USERS) {
+                    jdbcTemplate.update("INSERT INTO friendships (min_id, max_id, requester_id) VALUES (?, ?, ?)",
+                            userIds.get(i), userIds.get(i + j), userIds.get(i));
+                }
+            }
+        }
+        return userIds;
+    }
+
+    private long scanCount(String sqlQuery) {
+        long scanned = 0;
+        for (String plan : jdbcTemplate.queryForList("EXPLAIN ANALYZE " + sqlQuery, String.class)) {
+            Matcher matcher = SCAN_COUNT.matcher(plan);
+            while (matcher.find()) {
+                scanned += Long.parseLong(matcher.group(1));
+            }
+        }
+        return scanned;
+    }
+
+}
@@ -0,0 +1,73 @@
+package ru.yandex.practicum.filmorate.integration.film;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.storage.dao.impl.FilmDbStorage;
+import ru.yandex.practicum.filmorate.storage.dao.impl.FilmGenreDbStorage;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+@Slf4j
+@Tag("benchmark")
+@SpringBootTest
+@AutoConfigureTestDatabase
+@RequiredArgsConstructor(onConstructor__ = @Autowired)
+class FilmBulkInsertBenchmarkTest {
+
+    static final int FILMS = 2000;
+
+    final FilmDbStorage filmStorage;
+    final FilmGenreDbStorage filmGenreStorage;
+
+    @AfterEach
+    void afterEach() {
+        filmStorage.deleteAll();
+        filmGenreStorage.deleteAll();
+    }
+
+    @Test
+    void measureSaveAllAgainstSavingOneByOne() {
+        final List<Film> single = bulkOfFilms();
+        final List<Film> batched = bulkOfFilms();
+
+        final long singleStarted = System.nanoTime();
+        for (Film film : single) {
+            filmStorage.save(film);
+            filmGenreStorage.save(film);
+        }
+        final long singleElapsed = System.nanoTime() - singleStarted;
+        final long batchedStarted = System.nanoTime();
+        filmStorage.saveAll(batched);
+        final long batchedElapsed = System.nanoTime() - batchedStarted;
+
+        log.info("Фильмов в секунду: пакетом {}, по одному {}", FILMS * 1_000_000_000L / Math.max(1, batchedElapsed),
+                FILMS * 1_000_000_000L / Math.max(1, singleElapsed));
+    }
+
+    private static List<Film> bulkOfFilms() {
+        List<Film> films = new ArrayList<>(FILMS);
+        for (int i = 0; i < FILMS; i++) {
+            Film film = Film.builder()
+                    .name("Bulk film " + i)
+                    .description("Bulk description")
+                    .releaseDate(LocalDate.of(2000, 1, 1).plusDays(i))
+                    .duration(90)
+                    .mpa(new Mpa(1))
+                    .build();
+            film.addGenre(new Genre(1));
+            films.add(film);
+        }
+        return films;
+    }
+
+}
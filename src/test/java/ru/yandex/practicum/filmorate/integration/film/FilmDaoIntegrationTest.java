@@ -146,188 +146,105 @@ class FilmDaoIntegrationTest {
     }
 
     @Test
-    void testExistsById() {
-        final Film saved = filmStorage.save(firstFilm);
-
-        assertThat(saved.getId()).isNotEqualTo(0);
-        assertTrue(filmStorage.existsById(saved.getId()));
-    }
-
-    @Test
-    void testFindBySubString() {
-        final String partOfName = "FILM";
+    void testFindAllById_fillsGenresDirectorsAndLikes() {
+        final Genre genre = new Genre(random.nextInt(6) + 1);
+        final Director director = directorsStorage.create(new Director(0, "Director"));
+        final User user = userStorage.save(User.builder()
+                .login("Peter555")
+                .name("Peter")
+                .email("peter@ya.ru")
+                .birthday(LocalDate.of(2010, 1, 1))
+                .build());
+        firstFilm.addGenre(genre);
+        firstFilm.addDirector(director);
         final Film savedFirst = filmStorage.save(firstFilm);
         final Film savedSecond = filmStorage.save(secondFilm);
+        filmGenreStorage.save(savedFirst);
+        directorsStorage.save(savedFirst);
+        likeStorage.save(new Like(savedFirst.getId(), user.getId()));
 
-        final List<Long> foundedByName = filmStorage.findBySubString(partOfName);
+        final List<Film> films = filmStorage.findAllById(List.of(savedFirst.getId(), savedSecond.getId()));
 
-        assertThat(foundedByName)
-                .isNotNull()
-                .isNotEmpty()
-                .hasSize(2)
-                .contains(savedFirst.getId(), savedSecond.getId());
+        assertThat(films).hasSize(2);
+        final Film first = films.stream().filter(film -> film.getId() == savedFirst.getId()).findFirst().orElseThrow();
+        final Film second = films.stream().filter(film -> film.getId() == savedSecond.getId()).findFirst().orElseThrow();
+        assertThat(first.getGenres()).containsExactly(genre);
+        assertThat(first.getDirectors()).containsExactly(director);
+        assertThat(first.getLikes()).containsExactly(user.getId());
+        assertThat(second.getGenres()).isEmpty();
+        assertThat(second.getDirectors()).isEmpty();
+        assertThat(second.getLikes()).isEmpty();
     }
 
     @Test
-    void testFindByParams_byYearParam() {
-        final Film saved = filmStorage.save(firstFilm);
-
-        final List<Long> foundedIds = filmStorage.findAllByYear(firstFilm.getReleaseDate().getYear());
-
-        assertThat(foundedIds)
-                .isNotNull()
-                .isNotEmpty()
-                .hasSize(1)
-                .contains(saved.getId());
+    void testSaveAll_assignsKeysAndWritesGenresAndDirectors() {
+        final Director director = directorsStorage.create(new Director(0, "Director"));
+        firstFilm.addGenre(new Genre(1));
+        firstFilm.addGenre(new Genre(2));
+        firstFilm.addDirector(director);
+
+        filmStorage.saveAll(List.of(firstFilm, secondFilm));
+
+        assertThat(firstFilm.getId()).isNotZero();
+        assertThat(secondFilm.getId()).isGreaterThan(firstFilm.getId());
+        assertTrue(filmStorage.existsById(secondFilm.getId()));
+        final List<Film> films = filmStorage.findAllById(List.of(firstFilm.getId(), secondFilm.getId()));
+        final Film first = films.stream().filter(film -> film.getId() == firstFilm.getId()).findFirst().orElseThrow();
+        assertThat(first.getGenres()).containsExactlyInAnyOrder(new Genre(1), new Genre(2));
+        assertThat(first.getDirectors()).containsExactly(director);
+        assertThat(directorsStorage.findExistingIds(List.of(director.getId(), director.getId() + 1)))
+                .containsExactly(director.getId());
     }
 
     @Test
-    void testFindByParams_byGenreParam() {
-        final int genreId = new Random().nextInt(MovieGenre.values().length) + 1;
-        firstFilm.getGenres().add(new Genre(genreId));
-        final Film savedFilm = filmStorage.save(firstFilm);
-        filmGenreStorage.save(savedFilm);
-
-        final List<Long> foundedIds = filmGenreStorage.findAllByGenre(genreId);
-
-        assertThat(foundedIds)
-                .isNotNull()
-                .isNotEmpty()
-                .hasSize(1)
-                .contains(savedFilm.getId());
+    void testSaveAll_storesSameRowsAsSavingOneByOne() {
+        final List<Film> single = bulkOfFilms(5);
+        final List<Film> batched = bulkOfFilms(5);
+
+        for (Film film : single) {
+            filmStorage.save(film);
+            filmGenreStorage.save(film);
+        }
+        filmStorage.saveAll(batched);
+
+        assertThat(batched).allMatch(film -> film.getId() != 0);
+        assertThat(filmStorage.findAllById(idsOf(batched)))
+                .usingRecursiveFieldByFieldElementComparatorIgnoringFields("id")
+                .containsExactlyInAnyOrderElementsOf(filmStorage.findAllById(idsOf(single)));
     }
 
     @Test
-    void testFindPopular_returnListIdWithTopFirstFilm() {
-        filmStorage.save(firstFilm);
+    void givenWildcardCharacters_whenFindBySubString_thenMatchedLiterally() {
+        firstFilm.setName("100% film_");
+        final Film savedFirst = filmStorage.save(firstFilm);
         filmStorage.save(secondFilm);
-        final User user = User.builder()
-                .login("Serggge69")
-                .email("serggge69@yandex.ru")
-                .name("Sergey")
-                .birthday(LocalDate.of(1984, 1, 14))
-                .build();
-        final long userId = userStorage.save(user).getId();
-        likeStorage.save(new Like(firstFilm.getId(), userId));
 
-        List<Long> foundedIds = filmStorage.findPopular(2);
-
-        assertThat(foundedIds)
-                .isNotNull()
-                .isNotEmpty()
-                .hasSize(2)
-                .containsExactly(firstFilm.getId(), secondFilm.getId());
+        assertThat(filmStorage.findBySubString("0% FILM_")).containsExactly(savedFirst.getId());
+        assertThat(filmStorage.findBySubString("_")).containsExactly(savedFirst.getId());
+        assertThat(filmStorage.findBySubString("(.*")).isEmpty();
     }
 
     @Test
-    void testFindPopular_returnListIdWithTopSecondFilm() {
-        filmStorage.save(firstFilm);
-        filmStorage.save(secondFilm);
-        final User user = User.builder()
-                .login("Serggge69")
-                .email("serggge69@yandex.ru")
-                .name("Sergey")
-                .birthday(LocalDate.of(1984, 1, 14))
-                .build();
-        final long userId = userStorage.save(user).getId();
-        likeStorage.save(new Like(secondFilm.getId(), userId));
-
-        List<Long> foundedIds = filmStorage.findPopular(2);
-
-        assertThat(foundedIds)
-                .isNotNull()
-                .isNotEmpty()
-                .hasSize(2)
-                .containsExactly(secondFilm.getId(), firstFilm.getId());
-    }
-
-    @Test
-    void testFindPopular_incomingCountOne_returnSingleFilmIdAndEqualToSecondFilmId() {
-        filmStorage.save(firstFilm);
-        filmStorage.save(secondFilm);
-        final User user = User.builder()
-                .login("Serggge69")
-                .email("serggge69@yandex.ru")
-                .name("Sergey")
-                .birthday(LocalDate.of(1984, 1, 14))
-                .build();
-        final long userId = userStorage.save(user).getId();
-        likeStorage.save(new Like(secondFilm.getId(), userId));
-
-        List<Long> foundedIds = filmStorage.findPopular(1);
+    void testExistsById() {
+        final Film saved = filmStorage.save(firstFilm);
 
-        assertThat(foundedIds)
-                .isNotNull()
-                .isNotEmpty()
-                .hasSize(1)
-                .containsExactly(secondFilm.getId());
+        assertThat(saved.getId()).isNotEqualTo(0);
+        assertTrue(filmStorage.existsById(saved.getId()));
     }
 
     @Test
-    void testFindByYearAndGenreParams_returnTwoFilms() {
-        final LocalDate date = LocalDate.of(2022, 1, 1);
-        firstFilm.setReleaseDate(date);
-        secondFilm.setReleaseDate(date);
-        final Genre genre = new Genre(random.nextInt(6) + 1);
-        firstFilm.addGenre(genre);
-        secondFilm.addGenre(genre);
-        filmStorage.save(firstFilm);
-        filmStorage.save(secondFilm);
-        filmGenreStorage.save(firstFilm);
-        filmGenreStorage.save(secondFilm);
+    void testFindBySubString() {
+        final String partOfName = "FILM";
+        final Film savedFirst = filmStorage.save(firstFilm);
+        final Film savedSecond = filmStorage.save(secondFilm);
 
-        List<Long> foundedIds = filmStorage.findByYearAndGenre(date.getYear(), genre.getId());
+        final List<Long> foundedByName = filmStorage.findBySubString(partOfName);
 
-        assertThat(foundedIds)
+        assertThat(foundedByName)
                 .isNotNull()
                 .isNotEmpty()
                 .hasSize(2)
-                .contains(firstFilm.getId(), secondFilm.getId());
-    }
-
-    @Test
-    void testFindByYearAndGenreParams_givenFirstFilmHasNotEqualYearParam_returnOneFilmId() {
-        final LocalDate date = LocalDate.of(2022, 1, 1);
-        firstFilm.setReleaseDate(date.minusYears(1));
-        secondFilm.setReleaseDate(date);
-        final Genre genre = new Genre(random.nextInt(6) + 1);
-        firstFilm.addGenre(genre);
-        secondFilm.addGenre(genre);
-        filmStorage.save(firstFilm);
-        filmStorage.save(secondFilm);
-        filmGenreStorage.save(firstFilm);
-        filmGenreStorage.save(secondFilm);
-
-        List<Long> foundedIds = filmStorage.findByYearAndGenre(date.getYear(), genre.getId());
-
-        assertThat(foundedIds)
-                .isNotNull()
-                .isNotEmpty()
-                .hasSize(1)
-                .containsExactly(secondFilm.getId());
-    }
-
-    @Test
-    void testFindByYearAndGenreParams_givenFirstFilmHasNotEqualGenreParam_returnOneFilmId() {
-        final LocalDate date = LocalDate.of(2022, 1, 1);
-        firstFilm.setReleaseDate(date.minusYears(1));
-        secondFilm.setReleaseDate(date);
-        final Genre genre = new Genre(random.nextInt(5) + 1);
-        final Genre notEqualGenre = new Genre(genre.getId() + 1);
-        firstFilm.addGenre(notEqualGenre);
-        secondFilm.addGenre(genre);
-        filmStorage.save(firstFilm);
-        filmStorage.save(secondFilm);
-        filmGenreStorage.save(firstFilm);
-        filmGenreStorage.save(secondFilm);
-
-        List<Long> foundedIds = filmStorage.findByYearAndGenre(date.getYear(), genre.getId());
-
-        assertThat(foundedIds)
-                .isNotNull()
-                .isNotEmpty()
-                .hasSize(1)
-                .containsExactly(secondFilm.getId());
+                .contains(savedFirst.getId(), savedSecond.getId());
     }
 
     @Test
@@ -340,6 +257,28 @@ class FilmDaoIntegrationTest {
         assertThat(optionalFilm).isNotPresent();
     }
 
+    private static List<Long> idsOf(List<Film> films) {
+        List<Long> ids = new ArrayList<>(films.size());
+        films.forEach(film -> ids.add(film.getId()));
+        return ids;
+    }
+
+    private List<Film> bulkOfFilms(int count) {
+        List<Film> films = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Film film = Film.builder()
+                    .name("Bulk film " + i)
+                    .description("Bulk description")
+                    .releaseDate(LocalDate.of(2000, 1, 1).plusDays(i))
+                    .duration(90)
+                    .mpa(new Mpa(1))
+                    .build();
+            film.addGenre(new Genre(1));
+            films.add(film);
+        }
+        return films;
+    }
+
     private void setFilmsForDefaults() {
         firstFilm.setId(0);
         firstFilm.setName("Film One");
@@ -87,26 +87,6 @@ class FilmGenreDaoIntegrationTest {
                 .isEmpty();
     }
 
-    @Test
-    void testFindAllByGenre() {
-        Random random = new Random();
-        Genre genre = new Genre(random.nextInt(6) + 1);
-        firstFilm.addGenre(genre);
-        secondFilm.addGenre(genre);
-        filmStorage.save(firstFilm);
-        filmStorage.save(secondFilm);
-        filmGenreStorage.save(firstFilm);
-        filmGenreStorage.save(secondFilm);
-
-        final List<Long> foundedIds = filmGenreStorage.findAllByGenre(genre.getId());
-
-        assertThat(foundedIds)
-                .isNotNull()
-                .isNotEmpty()
-                .hasSize(2)
-                .contains(firstFilm.getId(), secondFilm.getId());
-    }
-
     @Test
     void testFindAll_returnMapOfFilmsIdsAndHisGenres() {
         Random random = new Random();
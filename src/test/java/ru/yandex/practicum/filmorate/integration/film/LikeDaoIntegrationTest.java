@@ -75,6 +75,43 @@ class LikeDaoIntegrationTest {
                 .isEmpty();
     }
 
+    @Test
+    void testSaveAndDelete_updateFilmLikeCount() {
+        final Like like = new Like(film.getId(), user.getId());
+        final Like friendLike = new Like(film.getId(), friend.getId());
+
+        likeStorage.save(like);
+        likeStorage.save(friendLike);
+        assertThat(filmStorage.findById(film.getId())).hasValueSatisfying(found ->
+                assertThat(found.getPopularity()).isEqualTo(2));
+
+        likeStorage.delete(like);
+        assertThat(filmStorage.findById(film.getId())).hasValueSatisfying(found ->
+                assertThat(found.getPopularity()).isEqualTo(1));
+    }
+
+    @Test
+    void testSaveAllAndDeleteAll_applyOnlyEffectiveChangesAndUpdateLikeCount() {
+        final Like like = new Like(film.getId(), user.getId());
+        final Like friendLike = new Like(film.getId(), friend.getId());
+        likeStorage.save(like);
+
+        final List<Like> saved = likeStorage.saveAll(List.of(like, friendLike));
+
+        assertThat(saved).containsExactly(friendLike);
+        assertThat(likeStorage.findExisting(List.of(like, friendLike))).containsExactlyInAnyOrder(like, friendLike);
+        assertThat(filmStorage.findById(film.getId())).hasValueSatisfying(found ->
+                assertThat(found.getPopularity()).isEqualTo(2));
+
+        final List<Like> deleted = likeStorage.deleteAll(List.of(like, new Like(film.getId(), user.getId() + 100)));
+
+        assertThat(deleted).containsExactly(like);
+        assertThat(likeStorage.findExisting(List.of(like, friendLike))).containsExactly(friendLike);
+        assertThat(likeStorage.findPopular(1)).containsExactly(film.getId());
+        assertThat(filmStorage.findById(film.getId())).hasValueSatisfying(found ->
+                assertThat(found.getPopularity()).isEqualTo(1));
+    }
+
     @Test
     void testIsExist() {
         final Like like = new Like(film.getId(), user.getId());
@@ -105,12 +142,49 @@ class LikeDaoIntegrationTest {
 
         likeStorage.save(like);
         likeStorage.save(likeFriend);
-        List<Long> commonLikes = likeStorage.findCommonLikes(user.getId(), friend.getId());
+        List<Long> commonLikes = likeStorage.findCommonLikes(user.getId(), friend.getId(), 10);
 
         assertThat(commonLikes.contains(film.getId())).isTrue();
         assertThat(commonLikes.size() == 1).isTrue();
     }
 
+    @Test
+    void testFindCommonLikes_returnMostLikedFirstAndLimited() {
+        Film otherFilm = Film.builder()
+                .name("Second film")
+                .description("Description second film")
+                .releaseDate(LocalDate.of(2020, 1, 1))
+                .duration(200)
+                .mpa(new Mpa(1))
+                .build();
+        otherFilm = filmStorage.save(otherFilm);
+        final User stranger = userStorage.save(User.builder()
+                .email("stranger@yandex.ru")
+                .login("stranger")
+                .name("Stranger")
+                .birthday(LocalDate.of(1990, 1, 1))
+                .build());
+        likeStorage.save(new Like(film.getId(), user.getId()));
+        likeStorage.save(new Like(film.getId(), friend.getId()));
+        likeStorage.save(new Like(otherFilm.getId(), user.getId()));
+        likeStorage.save(new Like(otherFilm.getId(), friend.getId()));
+        likeStorage.save(new Like(otherFilm.getId(), stranger.getId()));
+
+        assertThat(likeStorage.findCommonLikes(user.getId(), friend.getId(), 10))
+                .containsExactly(otherFilm.getId(), film.getId());
+        assertThat(likeStorage.findCommonLikes(user.getId(), friend.getId(), 1))
+                .containsExactly(otherFilm.getId());
+        assertThat(likeStorage.findCommonLikes(user.getId(), stranger.getId(), 10))
+                .containsExactly(otherFilm.getId());
+    }
+
+    @Test
+    void testFindCommonLikes_sameUserHasNoCommonLikes() {
+        likeStorage.save(new Like(film.getId(), user.getId()));
+
+        assertThat(likeStorage.findCommonLikes(user.getId(), user.getId(), 10)).isEmpty();
+    }
+
     @Test
     void testFindPopular_returnTwoIdsAndPopularFirst() {
         final Like userLikeFilm = new Like(film.getId(), user.getId());
@@ -189,39 +263,6 @@ class LikeDaoIntegrationTest {
                 .containsExactly(otherFilm.getId());
     }
 
-    @Test
-    void testSuggestFilms() {
-        Film secondFilm = Film.builder()
-                .name("Second film")
-                .description("Description second film")
-                .releaseDate(LocalDate.now())
-                .duration(200)
-                .mpa(new Mpa(2))
-                .build();
-        User secondUser = User.builder()
-                .login("Peter555")
-                .name("Peter")
-                .email("peter@ya.ru")
-                .birthday(LocalDate.of(2010, 1, 1))
-                .build();
-        secondFilm = filmStorage.save(secondFilm);
-        secondUser = userStorage.save(secondUser);
-        final Like firstUserFirstFilm = new Like(film.getId(), user.getId());
-        likeStorage.save(firstUserFirstFilm);
-        final Like secondUserFirstFilm = new Like(film.getId(), secondUser.getId());
-        likeStorage.save(secondUserFirstFilm);
-        final Like secondUserSecondFilm = new Like(secondFilm.getId(), secondUser.getId());
-        likeStorage.save(secondUserSecondFilm);
-
-        List<Long> suggestForUser = likeStorage.suggestFilms(user.getId());
-
-        assertThat(suggestForUser)
-                .isNotNull()
-                .isNotEmpty()
-                .hasSize(1)
-                .contains(secondFilm.getId());
-    }
-
     private static void setFilmAndUserForDefaults() {
         film.setId(0);
         film.setName("Film One");
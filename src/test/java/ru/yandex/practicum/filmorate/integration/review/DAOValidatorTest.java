@@ -1,11 +1,13 @@
 package ru.yandex.practicum.filmorate.integration.review;
 
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.anyLong;
+import static org.mockito.Mockito.eq;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
-import java.util.ArrayList;
-
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -14,7 +16,9 @@ import org.springframework.dao.DataAccessException;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
+import ru.yandex.practicum.filmorate.exception.FilmNotFoundException;
 import ru.yandex.practicum.filmorate.storage.dao.DAOValidator;
+import ru.yandex.practicum.filmorate.storage.index.KnownIdsIndex;
 
 @ContextConfiguration(classes = {DAOValidator.class})
 @ExtendWith(SpringExtension.class)
@@ -25,32 +29,45 @@ class DAOValidatorTest {
     @MockBean
     private JdbcTemplate jdbcTemplate;
 
+    @MockBean
+    private KnownIdsIndex knownIds;
+
     @Test
     void testValidateFilmBd() throws DataAccessException {
-        ArrayList<Long> resultLongList = new ArrayList<>();
-        resultLongList.add(1L);
-        when(jdbcTemplate.queryForList((String) any(), (Class<Long>) any())).thenReturn(resultLongList);
+        when(knownIds.mightContainFilm(anyLong())).thenReturn(true);
+        when(jdbcTemplate.queryForObject((String) any(), eq(Boolean.class), any())).thenReturn(true);
         dAOValidator.validateFilmBd(1L);
-        verify(jdbcTemplate).queryForList((String) any(), (Class<Long>) any());
+        verify(jdbcTemplate).queryForObject((String) any(), eq(Boolean.class), eq(1L));
     }
 
     @Test
     void testValidateUserBd() throws DataAccessException {
-        ArrayList<Long> resultLongList = new ArrayList<>();
-        resultLongList.add(1L);
-        when(jdbcTemplate.queryForList((String) any(), (Class<Long>) any())).thenReturn(resultLongList);
+        when(knownIds.mightContainUser(anyLong())).thenReturn(true);
+        when(jdbcTemplate.queryForObject((String) any(), eq(Boolean.class), any())).thenReturn(true);
         dAOValidator.validateUserBd(1L);
-        verify(jdbcTemplate).queryForList((String) any(), (Class<Long>) any());
+        verify(jdbcTemplate).queryForObject((String) any(), eq(Boolean.class), eq(1L));
     }
 
     @Test
     void testValidateReviewDB() throws DataAccessException {
-        ArrayList<Long> resultLongList = new ArrayList<>();
-        resultLongList.add(1L);
-        when(jdbcTemplate.queryForList((String) any(), (Class<Long>) any())).thenReturn(resultLongList);
+        when(knownIds.mightContainReview(anyLong())).thenReturn(true);
+        when(jdbcTemplate.queryForObject((String) any(), eq(Boolean.class), any())).thenReturn(true);
         dAOValidator.validateReviewDB(1L);
-        verify(jdbcTemplate).queryForList((String) any(), (Class<Long>) any());
+        verify(jdbcTemplate).queryForObject((String) any(), eq(Boolean.class), eq(1L));
     }
 
-}
+    @Test
+    void testValidateFilmBd_unknownId_noDatabaseQuery() {
+        when(knownIds.mightContainFilm(anyLong())).thenReturn(false);
+        assertThrows(FilmNotFoundException.class, () -> dAOValidator.validateFilmBd(1L));
+        verifyNoInteractions(jdbcTemplate);
+    }
 
+    @Test
+    void testValidateUserBd_falsePositive_throwsAfterProbe() {
+        when(knownIds.mightContainUser(anyLong())).thenReturn(true);
+        when(jdbcTemplate.queryForObject((String) any(), eq(Boolean.class), any())).thenReturn(false);
+        assertThrows(FilmNotFoundException.class, () -> dAOValidator.validateUserBd(1L));
+    }
+
+}
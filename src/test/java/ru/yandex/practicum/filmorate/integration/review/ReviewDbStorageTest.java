@@ -9,7 +9,10 @@ import static org.mockito.Mockito.anyLong;
 import static org.mockito.Mockito.atLeast;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -33,6 +36,7 @@ import ru.yandex.practicum.filmorate.exception.ValidationException;
 import ru.yandex.practicum.filmorate.model.Review;
 import ru.yandex.practicum.filmorate.storage.dao.DAOValidator;
 import ru.yandex.practicum.filmorate.storage.dao.impl.ReviewDbStorage;
+import ru.yandex.practicum.filmorate.storage.index.KnownIdsIndex;
 
 @ContextConfiguration(classes = {ReviewDbStorage.class})
 @ExtendWith(SpringExtension.class)
@@ -43,6 +47,9 @@ class ReviewDbStorageTest {
     @MockBean
     private JdbcTemplate jdbcTemplate;
 
+    @MockBean
+    private KnownIdsIndex knownIds;
+
     @Autowired
     private ReviewDbStorage reviewDbStorage;
 
@@ -128,41 +135,43 @@ class ReviewDbStorageTest {
     @Test
     void testLikeReview() throws DataAccessException {
         when(jdbcTemplate.update((String) any(), (Object[]) any())).thenReturn(1);
-        when(jdbcTemplate.queryForObject((String) any(), (RowMapper<Object>) any(), (Object[]) any()))
-                .thenReturn(new Review());
+        when(jdbcTemplate.queryForList((String) any(), eq(Integer.class), (Object[]) any()))
+                .thenReturn(Collections.emptyList());
         reviewDbStorage.likeReview(1L, 1L);
-        verify(jdbcTemplate).queryForObject((String) any(), (RowMapper<Object>) any(), (Object[]) any());
+        verify(jdbcTemplate).queryForList((String) any(), eq(Integer.class), eq(1L), eq(1L), eq(1));
+        verify(jdbcTemplate, times(1)).update((String) any(), eq(1), eq(1L));
+        verify(jdbcTemplate, never()).queryForObject((String) any(), eq(Integer.class), (Object[]) any());
     }
 
     @Test
-    void testLikeReview2() throws DataAccessException {
-        Review review = mock(Review.class);
-        when(review.getUseful()).thenReturn(1);
-        when(jdbcTemplate.update((String) any(), (Object[]) any())).thenReturn(1);
-        when(jdbcTemplate.queryForObject((String) any(), (RowMapper<Object>) any(), (Object[]) any())).thenReturn(review);
+    void testLikeReview_sameVoteTwice_noUpdate() throws DataAccessException {
+        when(jdbcTemplate.queryForList((String) any(), eq(Integer.class), (Object[]) any()))
+                .thenReturn(Collections.singletonList(1));
         reviewDbStorage.likeReview(1L, 1L);
-        verify(jdbcTemplate).queryForObject((String) any(), (RowMapper<Object>) any(), (Object[]) any());
-        verify(review).getUseful();
+        verify(jdbcTemplate, never()).update((String) any(), (Object[]) any());
     }
 
     @Test
     void testDislikeReview() throws DataAccessException {
         when(jdbcTemplate.update((String) any(), (Object[]) any())).thenReturn(1);
-        when(jdbcTemplate.queryForObject((String) any(), (RowMapper<Object>) any(), (Object[]) any()))
-                .thenReturn(new Review());
+        when(jdbcTemplate.queryForList((String) any(), eq(Integer.class), (Object[]) any()))
+                .thenReturn(Collections.singletonList(1));
         reviewDbStorage.dislikeReview(1L, 1L);
-        verify(jdbcTemplate).queryForObject((String) any(), (RowMapper<Object>) any(), (Object[]) any());
+        verify(jdbcTemplate).update((String) any(), eq(-2), eq(1L));
     }
 
     @Test
-    void testDislikeReview2() throws DataAccessException {
-        Review review = mock(Review.class);
-        when(review.getUseful()).thenReturn(1);
+    void testRemoveLikeReview() throws DataAccessException {
         when(jdbcTemplate.update((String) any(), (Object[]) any())).thenReturn(1);
-        when(jdbcTemplate.queryForObject((String) any(), (RowMapper<Object>) any(), (Object[]) any())).thenReturn(review);
-        reviewDbStorage.dislikeReview(1L, 1L);
-        verify(jdbcTemplate).queryForObject((String) any(), (RowMapper<Object>) any(), (Object[]) any());
-        verify(review).getUseful();
+        reviewDbStorage.removeLikeReview(1L, 1L);
+        verify(jdbcTemplate).update((String) any(), eq(-1), eq(1L));
+    }
+
+    @Test
+    void testRemoveDislikeReview_noVote_usefulUnchanged() throws DataAccessException {
+        when(jdbcTemplate.update((String) any(), (Object[]) any())).thenReturn(0);
+        reviewDbStorage.removeDislikeReview(1L, 1L);
+        verify(jdbcTemplate, times(1)).update((String) any(), (Object[]) any());
     }
 
     @Test
@@ -0,0 +1,108 @@
+package ru.yandex.practicum.filmorate.integration.review;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.model.Review;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.UserService;
+import ru.yandex.practicum.filmorate.storage.dao.ReviewStorage;
+import ru.yandex.practicum.filmorate.storage.dao.impl.FilmDbStorage;
+import ru.yandex.practicum.filmorate.storage.dao.impl.UserDbStorage;
+import java.time.LocalDate;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@AutoConfigureTestDatabase
+@RequiredArgsConstructor(onConstructor__ = @Autowired)
+class ReviewVotesIntegrationTest {
+
+    final ReviewStorage reviewStorage;
+    final UserService userService;
+    final FilmDbStorage filmStorage;
+    final UserDbStorage userStorage;
+
+    @AfterEach
+    void afterEach() {
+        filmStorage.deleteAll();
+        userStorage.deleteAll();
+    }
+
+    @Test
+    void testDeleteUser_subtractsTheirVotesFromUseful() {
+        final long filmId = filmStorage.save(newFilm()).getId();
+        final long authorId = userStorage.save(newUser("author")).getId();
+        final long voterId = userStorage.save(newUser("voter")).getId();
+        final long otherId = userStorage.save(newUser("other")).getId();
+        final long likedId = reviewStorage.update(newReview(filmId, authorId)).getReviewId();
+        final long dislikedId = reviewStorage.update(newReview(filmId, authorId)).getReviewId();
+
+        reviewStorage.likeReview(likedId, voterId);
+        reviewStorage.likeReview(likedId, otherId);
+        reviewStorage.dislikeReview(dislikedId, voterId);
+        userService.deleteUserById(voterId);
+
+        assertThat(reviewStorage.findById(likedId).getUseful()).isEqualTo(1);
+        assertThat(reviewStorage.findById(dislikedId).getUseful()).isZero();
+    }
+
+    @Test
+    void testVote_repeatedAndSwitchedVotesApplyOnlyTheDelta() {
+        final long filmId = filmStorage.save(newFilm()).getId();
+        final long authorId = userStorage.save(newUser("author")).getId();
+        final long voterId = userStorage.save(newUser("voter")).getId();
+        final long reviewId = reviewStorage.update(newReview(filmId, authorId)).getReviewId();
+
+        reviewStorage.likeReview(reviewId, voterId);
+        reviewStorage.likeReview(reviewId, voterId);
+        assertThat(reviewStorage.findById(reviewId).getUseful()).isEqualTo(1);
+
+        reviewStorage.dislikeReview(reviewId, voterId);
+        assertThat(reviewStorage.findById(reviewId).getUseful()).isEqualTo(-1);
+
+        reviewStorage.removeDislikeReview(reviewId, voterId);
+        assertThat(reviewStorage.findById(reviewId).getUseful()).isZero();
+    }
+
+    @Test
+    void testDeleteVotesByUserId_userWithoutVotesLeavesUsefulUnchanged() {
+        final long filmId = filmStorage.save(newFilm()).getId();
+        final long authorId = userStorage.save(newUser("author")).getId();
+        final long voterId = userStorage.save(newUser("voter")).getId();
+        final long reviewId = reviewStorage.update(newReview(filmId, authorId)).getReviewId();
+
+        reviewStorage.likeReview(reviewId, voterId);
+        reviewStorage.deleteVotesByUserId(authorId);
+
+        assertThat(reviewStorage.findById(reviewId).getUseful()).isEqualTo(1);
+    }
+
+    private static Film newFilm() {
+        Film film = new Film();
+        film.setName("Film One");
+        film.setDescription("Description for first film");
+        film.setReleaseDate(LocalDate.of(2000, 1, 1));
+        film.setDuration(120);
+        film.setMpa(new Mpa(1));
+        return film;
+    }
+
+    private static User newUser(String login) {
+        User user = new User();
+        user.setLogin(login);
+        user.setEmail(login + "@yandex.ru");
+        user.setName(login);
+        user.setBirthday(LocalDate.of(2000, 1, 1));
+        return user;
+    }
+
+    private static Review newReview(long filmId, long userId) {
+        return new Review(0L, filmId, userId, "Useful review", true, 0, null);
+    }
+
+}
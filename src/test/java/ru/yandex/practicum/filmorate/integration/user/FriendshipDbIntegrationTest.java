@@ -5,12 +5,15 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DuplicateKeyException;
 import ru.yandex.practicum.filmorate.model.Friendship;
+import ru.yandex.practicum.filmorate.model.FriendshipStatus;
 import ru.yandex.practicum.filmorate.model.User;
 import ru.yandex.practicum.filmorate.storage.dao.FriendStorage;
 import ru.yandex.practicum.filmorate.storage.dao.impl.UserDbStorage;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
 import java.time.LocalDate;
 import java.util.List;
@@ -122,6 +125,57 @@ class FriendshipDbIntegrationTest {
         assertThat(friendStorage.isConfirmed(inverseFriendship)).isTrue();
     }
 
+    @Test
+    void testSave_storeOneRowPerUnorderedPair() {
+        final Friendship friendship = new Friendship(user.getId(), friend.getId());
+        final Friendship inverseFriendship = new Friendship(friend.getId(), user.getId());
+        friendStorage.save(friendship);
+
+        assertThrows(DuplicateKeyException.class, () -> friendStorage.save(inverseFriendship));
+    }
+
+    @Test
+    void testConfirm_friendsVisibleFromBothSidesAndRequesterKept() {
+        final Friendship request = new Friendship(friend.getId(), user.getId());
+        friendStorage.save(request);
+        assertThat(friendStorage.findFriendsIdByUserId(user.getId())).isEmpty();
+
+        friendStorage.confirm(new Friendship(user.getId(), friend.getId()));
+
+        assertThat(friendStorage.findFriendsIdByUserId(user.getId())).containsExactly(friend.getId());
+        assertThat(friendStorage.findFriendsIdByUserId(friend.getId())).containsExactly(user.getId());
+        assertThat(friendStorage.find(new Friendship(user.getId(), friend.getId()))).contains(request);
+    }
+
+    @Test
+    void testSendRequest_moveThroughPendingAndConfirmedStates() {
+        final Friendship request = new Friendship(user.getId(), friend.getId());
+        final Friendship answer = new Friendship(friend.getId(), user.getId());
+
+        assertThat(friendStorage.sendRequest(request)).contains(FriendshipStatus.PENDING);
+        assertThat(friendStorage.find(answer)).contains(request);
+        assertThat(friendStorage.isConfirmed(request)).isFalse();
+
+        assertThat(friendStorage.sendRequest(answer)).contains(FriendshipStatus.CONFIRMED);
+        assertThat(friendStorage.isConfirmed(request)).isTrue();
+        assertThat(friendStorage.find(answer)).contains(request);
+
+        assertThat(friendStorage.sendRequest(request)).isEmpty();
+        assertThat(friendStorage.sendRequest(answer)).isEmpty();
+    }
+
+    @Test
+    void testSendRequest_repeatedBySameSideStaysPending() {
+        final Friendship request = new Friendship(user.getId(), friend.getId());
+
+        assertThat(friendStorage.sendRequest(request)).contains(FriendshipStatus.PENDING);
+        assertThat(friendStorage.sendRequest(request)).isEmpty();
+
+        assertThat(friendStorage.isConfirmed(request)).isFalse();
+        assertThat(friendStorage.find(request)).contains(request);
+        assertThat(friendStorage.findFriendsIdByUserId(friend.getId())).isEmpty();
+    }
+
     static void setUsersForDefaults() {
         user.setId(0);
         user.setEmail("ivan2000@yandex.ru");
@@ -0,0 +1,123 @@
+package ru.yandex.practicum.filmorate.unit.film;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.storage.cache.FilmCache;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FilmCacheTest {
+
+    FilmCache cache;
+    List<Long> loaded;
+
+    @BeforeEach
+    void beforeEach() {
+        cache = new FilmCache(2, 60);
+        loaded = new ArrayList<>();
+    }
+
+    @Test
+    void givenCachedFilm_whenFindById_thenLoaderNotCalledAgain() {
+        final Optional<Film> first = cache.findById(1, this::load);
+        final Optional<Film> second = cache.findById(1, this::load);
+
+        assertThat(second).isEqualTo(first);
+        assertThat(loaded).containsExactly(1L);
+        assertThat(cache.getStats().getHits()).isEqualTo(1);
+        assertThat(cache.getStats().getMisses()).isEqualTo(1);
+    }
+
+    @Test
+    void givenPartlyCachedIds_whenFindAllById_thenLoadOnlyMissing() {
+        cache.findById(1, this::load);
+
+        final List<Film> films = cache.findAllById(List.of(1L, 2L), this::loadAll);
+
+        assertThat(films).extracting(Film::getId).containsExactlyInAnyOrder(1L, 2L);
+        assertThat(loaded).containsExactly(1L, 2L);
+    }
+
+    @Test
+    void givenCachedFilm_whenLikeAddedAndRemoved_thenEntryPatchedWithoutReload() {
+        final Film original = cache.findById(1, this::load).orElseThrow();
+
+        cache.addLike(1, 10);
+        cache.addLike(1, 11);
+        cache.removeLike(1, 10);
+        final Film patched = cache.findById(1, this::load).orElseThrow();
+
+        assertThat(original.getLikes()).isEmpty();
+        assertThat(patched.getLikes()).containsExactly(11L);
+        assertThat(patched.getPopularity()).isEqualTo(1);
+        assertThat(loaded).containsExactly(1L);
+    }
+
+    @Test
+    void givenFullCache_whenMoreFilmsLoadedOrInvalidated_thenReloaded() {
+        cache.findAllById(List.of(1L, 2L, 3L), this::loadAll);
+        cache.invalidate(3);
+        cache.findById(3, this::load);
+
+        assertThat(cache.getStats().getEvictions()).isGreaterThanOrEqualTo(1);
+        assertThat(cache.getStats().getSize()).isLessThanOrEqualTo(2);
+        assertThat(loaded).containsExactly(1L, 2L, 3L, 3L);
+    }
+
+    @Test
+    void givenLikeLandsDuringLoad_whenFindById_thenStaleSnapshotNotCached() {
+        final Film stale = cache.findById(1, id -> {
+            final Optional<Film> snapshot = load(id);
+            cache.addLike(1, 10);
+            return snapshot;
+        }).orElseThrow();
+        final Film fresh = cache.findById(1, id -> load(id).map(film -> {
+            film.addLike(10);
+            return film;
+        })).orElseThrow();
+
+        assertThat(stale.getLikes()).isEmpty();
+        assertThat(fresh.getLikes()).containsExactly(10L);
+        assertThat(cache.findById(1, this::load).orElseThrow().getLikes()).containsExactly(10L);
+        assertThat(loaded).containsExactly(1L, 1L);
+    }
+
+    @Test
+    void givenInvalidationDuringLoad_whenFindAllById_thenOnlyUntouchedFilmsCached() {
+        cache.findAllById(List.of(1L, 2L), ids -> {
+            final List<Film> snapshot = loadAll(ids);
+            cache.invalidate(2);
+            return snapshot;
+        });
+        cache.findAllById(List.of(1L, 2L), this::loadAll);
+
+        assertThat(loaded).containsExactly(1L, 2L, 2L);
+    }
+
+    private Optional<Film> load(long id) {
+        loaded.add(id);
+        return Optional.of(Film.builder()
+                .id(id)
+                .name("film" + id)
+                .description("description")
+                .releaseDate(LocalDate.of(2000, 1, 1))
+                .duration(100)
+                .mpa(new Mpa(1))
+                .build());
+    }
+
+    private List<Film> loadAll(Collection<Long> ids) {
+        return ids.stream()
+                .map(this::load)
+                .map(Optional::orElseThrow)
+                .collect(Collectors.toList());
+    }
+
+}
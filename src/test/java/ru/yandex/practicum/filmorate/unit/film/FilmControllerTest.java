@@ -6,10 +6,13 @@ import org.springframework.web.HttpRequestMethodNotSupportedException;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.method.annotation.MethodArgumentTypeMismatchException;
 import ru.yandex.practicum.filmorate.controller.FilmController;
+import ru.yandex.practicum.filmorate.model.BulkResult;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.LikeCommand;
 import ru.yandex.practicum.filmorate.model.Genre;
 import ru.yandex.practicum.filmorate.model.MovieGenre;
 import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.model.Operation;
 import ru.yandex.practicum.filmorate.service.FilmService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeAll;
@@ -262,6 +265,55 @@ class FilmControllerTest {
         verify(service, never()).create(any(Film.class));
     }
 
+    @Test
+    void handleAddAll_streamWithInvalidItem_importValidAndReportIndex() throws Exception {
+        when(service.importFilms(anyMap())).thenAnswer(invocation -> {
+            Map<Integer, Film> films = invocation.getArgument(0);
+            BulkResult result = new BulkResult();
+            result.received(films.size());
+            result.applied(films.size());
+            return result;
+        });
+        Film invalid = new Film();
+        invalid.setName("");
+        invalid.setDescription("Invalid");
+        invalid.setReleaseDate(LocalDate.of(2000, 1, 1));
+        invalid.setDuration(-1);
+        invalid.setMpa(new Mpa(1));
+
+        var mvcRequest = post("/films/bulk").contentType(MediaType.APPLICATION_JSON)
+                .content(mapper.writeValueAsString(List.of(firstFilm, invalid, secondFilm)));
+
+        mvc.perform(mvcRequest)
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.received", is(3)))
+                .andExpect(jsonPath("$.applied", is(2)))
+                .andExpect(jsonPath("$.errors", hasSize(1)))
+                .andExpect(jsonPath("$.errors[0].index", is(1)))
+                .andExpect(jsonPath("$.errors[0].message", containsString("duration")));
+        verify(service).importFilms(argThat(films -> films.keySet().equals(Set.of(0, 2))));
+    }
+
+    @Test
+    void handleApplyLikes_passCommandsInRequestOrder() throws Exception {
+        BulkResult applied = new BulkResult();
+        applied.received(2);
+        applied.applied(2);
+        when(service.applyLikes(anyList())).thenReturn(applied);
+        final List<LikeCommand> commands = List.of(
+                new LikeCommand(1, 2, Operation.ADD),
+                new LikeCommand(1, 2, Operation.REMOVE));
+
+        var mvcRequest = post("/films/likes/bulk").contentType(MediaType.APPLICATION_JSON)
+                .content(mapper.writeValueAsString(commands));
+
+        mvc.perform(mvcRequest)
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.applied", is(2)))
+                .andExpect(jsonPath("$.errors", hasSize(0)));
+        verify(service).applyLikes(commands);
+    }
+
     @Test
     void testMethodNotAllowed_ThrowHttpRequestMethodNotSupportedException_returnErrorResponse() throws Exception {
         mvc.perform(patch("/films").contentType(MediaType.APPLICATION_JSON)
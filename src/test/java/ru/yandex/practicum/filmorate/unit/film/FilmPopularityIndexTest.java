@@ -0,0 +1,85 @@
+package ru.yandex.practicum.filmorate.unit.film;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.storage.index.FilmPopularityIndex;
+import java.time.LocalDate;
+import java.util.List;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FilmPopularityIndexTest {
+
+    FilmPopularityIndex index;
+
+    @BeforeEach
+    void beforeEach() {
+        index = new FilmPopularityIndex(null);
+        index.put(film(1, 2000, 1));
+        index.put(film(2, 2000, 2));
+        index.put(film(3, 2001, 1));
+    }
+
+    @Test
+    void givenNoLikes_whenFindTop_thenOrderedById() {
+        assertThat(index.findTop(10, null, null)).containsExactly(1L, 2L, 3L);
+    }
+
+    @Test
+    void givenLikeCountChanged_whenFindTop_thenMostLikedFirst() {
+        index.changeLikeCount(3, 1);
+        index.changeLikeCount(2, 1);
+        index.changeLikeCount(2, 1);
+
+        assertThat(index.findTop(2, null, null)).containsExactly(2L, 3L);
+
+        index.changeLikeCount(2, -2);
+
+        assertThat(index.findTop(2, null, null)).containsExactly(3L, 1L);
+    }
+
+    @Test
+    void givenYearAndGenre_whenFindTop_thenOnlyMatchingPartition() {
+        index.changeLikeCount(3, 1);
+
+        assertThat(index.findTop(10, 2000, null)).containsExactly(1L, 2L);
+        assertThat(index.findTop(10, null, 1)).containsExactly(3L, 1L);
+        assertThat(index.findTop(10, 2000, 1)).containsExactly(1L);
+        assertThat(index.findTop(10, 1999, 1)).isEmpty();
+    }
+
+    @Test
+    void givenFilmUpdatedOrRemoved_whenFindTop_thenPartitionsFollow() {
+        final Film moved = film(1, 2001, 2);
+        index.put(moved);
+        index.remove(3);
+
+        assertThat(index.findTop(10, 2000, null)).containsExactly(2L);
+        assertThat(index.findTop(10, 2001, 2)).containsExactly(1L);
+        assertThat(index.findTop(10, null, 1)).isEqualTo(List.of());
+    }
+
+    @Test
+    void givenNegativeGenreId_whenFindTopByYearAndGenre_thenOtherYearsNotMixedIn() {
+        index.put(film(4, 2000, -1));
+
+        assertThat(index.findTop(10, 2000, -1)).containsExactly(4L);
+        assertThat(index.findTop(10, 1999, -1)).isEmpty();
+    }
+
+    private static Film film(long id, int year, int genreId) {
+        Film film = Film.builder()
+                .id(id)
+                .name("Film " + id)
+                .description("Description " + id)
+                .releaseDate(LocalDate.of(year, 1, 1))
+                .duration(100)
+                .mpa(new Mpa(1))
+                .build();
+        film.addGenre(new Genre(genreId));
+        return film;
+    }
+
+}
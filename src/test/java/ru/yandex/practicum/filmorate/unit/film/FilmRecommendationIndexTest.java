@@ -0,0 +1,92 @@
+package ru.yandex.practicum.filmorate.unit.film;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.storage.index.FilmRecommendationIndex;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FilmRecommendationIndexTest {
+
+    FilmRecommendationIndex index;
+
+    @BeforeEach
+    void beforeEach() {
+        index = new FilmRecommendationIndex(null, 100);
+        index.addLike(1, 10);
+        index.addLike(1, 20);
+        index.addLike(2, 10);
+        index.addLike(2, 20);
+        index.addLike(2, 30);
+        index.addLike(3, 10);
+        index.addLike(3, 40);
+        index.addLike(3, 50);
+        index.addLike(3, 60);
+    }
+
+    @Test
+    void givenOverlappingUsers_whenRecommend_thenMostSimilarNeighboursFilmsFirst() {
+        assertThat(index.recommend(1, 10)).containsExactly(30L, 40L, 50L, 60L);
+        assertThat(index.recommend(1, 2)).containsExactly(30L, 40L);
+    }
+
+    @Test
+    void givenFilmLikedByManyUsers_whenRecommend_thenOnlyClosestNeighboursCount() {
+        for (long user = 100; user < 5100; user++) {
+            index.addLike(user, 10);
+        }
+        index.addLike(100, 20);
+        index.addLike(100, 90);
+
+        assertThat(index.recommend(1, 10)).containsExactly(30L, 90L);
+    }
+
+    @Test
+    void givenNoOverlap_whenRecommend_thenEmpty() {
+        index.addLike(4, 70);
+
+        assertThat(index.recommend(4, 10)).isEmpty();
+        assertThat(index.recommend(5, 10)).isEmpty();
+    }
+
+    @Test
+    void givenLikeRemoved_whenRecommend_thenNeighbourDropped() {
+        index.removeLike(2, 10);
+        index.removeLike(2, 20);
+
+        assertThat(index.recommend(1, 10)).containsExactly(40L, 50L, 60L);
+    }
+
+    @Test
+    void givenUserOrFilmRemoved_whenRecommend_thenNotRecommended() {
+        index.removeUser(3);
+        index.removeFilm(30);
+
+        assertThat(index.recommend(1, 10)).isEmpty();
+    }
+
+    @Test
+    void givenCachedNeighbours_whenNeighbourLikesFilm_thenRecommendationUpdated() {
+        assertThat(index.recommend(1, 10)).containsExactly(30L, 40L, 50L, 60L);
+
+        index.addLike(2, 70);
+        index.addLike(4, 10);
+        index.addLike(4, 20);
+        index.addLike(4, 80);
+
+        assertThat(index.recommend(1, 2)).containsExactly(30L, 70L);
+        assertThat(index.recommend(1, 10)).contains(80L);
+    }
+
+    @Test
+    void givenFreedSlotsReused_whenRecommend_thenOnlyCurrentIdsReturned() {
+        index.removeUser(3);
+        index.addLike(7, 10);
+        index.addLike(7, 80);
+        index.addLike(8, 90);
+
+        assertThat(index.recommend(1, 10)).containsExactly(30L, 80L);
+        assertThat(index.recommend(3, 10)).isEmpty();
+        assertThat(index.recommend(8, 10)).isEmpty();
+    }
+
+}
@@ -0,0 +1,86 @@
+package ru.yandex.practicum.filmorate.unit.film;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.model.Director;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.storage.index.FilmSearchIndex;
+import java.time.LocalDate;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FilmSearchIndexTest {
+
+    FilmSearchIndex index;
+
+    @BeforeEach
+    void beforeEach() {
+        index = new FilmSearchIndex(null);
+        index.putDirector(new Director(1, "Андрей Тарковский"));
+        index.putDirector(new Director(2, "Stanley Kubrick"));
+        index.putFilm(film(1, "Солярис", 1));
+        index.putFilm(film(2, "Ёлки", 2));
+        index.putFilm(film(3, "The Shining", 2));
+    }
+
+    @Test
+    void givenCyrillicQueryInAnyCase_whenFindByTitle_thenFound() {
+        assertThat(index.findByTitle("СОЛЯР")).containsExactly(1L);
+        assertThat(index.findByTitle("ёлк")).containsExactly(2L);
+        assertThat(index.findByTitle("ЕЛКИ")).containsExactly(2L);
+        assertThat(index.findByTitle("shin")).containsExactly(3L);
+    }
+
+    @Test
+    void givenShortQuery_whenFindByTitle_thenSubstringMatched() {
+        assertThat(index.findByTitle("IN")).containsExactly(3L);
+        assertThat(index.findByTitle("и")).containsExactlyInAnyOrder(1L, 2L);
+    }
+
+    @Test
+    void givenTrigramsInDifferentOrder_whenFindByTitle_thenNotFound() {
+        assertThat(index.findByTitle("ingshin")).isEmpty();
+    }
+
+    @Test
+    void givenDirectorQuery_whenFindByDirector_thenDirectorsFilms() {
+        assertThat(index.findByDirector("kubr")).containsExactlyInAnyOrder(2L, 3L);
+        assertThat(index.findByDirector("тарков")).containsExactly(1L);
+    }
+
+    @Test
+    void givenFilmAndDirectorUpdated_whenFind_thenIndexFollows() {
+        index.putFilm(film(1, "Сталкер", 2));
+        index.putDirector(new Director(2, "Стэнли Кубрик"));
+        index.removeFilm(3);
+
+        assertThat(index.findByTitle("солярис")).isEmpty();
+        assertThat(index.findByTitle("сталк")).containsExactly(1L);
+        assertThat(index.findByDirector("тарков")).isEmpty();
+        assertThat(index.findByDirector("кубрик")).containsExactlyInAnyOrder(1L, 2L);
+
+        index.removeDirector(2);
+
+        assertThat(index.findByDirector("кубрик")).isEmpty();
+    }
+
+    @Test
+    void givenQueryLength_whenPlan_thenScanBelowTrigram() {
+        assertThat(index.plan("Ёл")).isEqualTo("scan");
+        assertThat(index.plan("Ёлк")).isEqualTo("trigram");
+    }
+
+    static Film film(long id, String name, int directorId) {
+        Film film = Film.builder()
+                .id(id)
+                .name(name)
+                .description("description")
+                .releaseDate(LocalDate.of(2000, 1, 1))
+                .duration(100)
+                .mpa(new Mpa(1))
+                .build();
+        film.addDirector(new Director(directorId, null));
+        return film;
+    }
+
+}
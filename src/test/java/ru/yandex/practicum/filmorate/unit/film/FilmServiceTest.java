@@ -6,6 +6,7 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import static org.mockito.BDDMockito.given;
 import static org.assertj.core.api.Assertions.assertThat;
@@ -13,17 +14,26 @@ import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.Mockito.*;
 import static ru.yandex.practicum.filmorate.util.Constants.FIRST_FILM;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.dao.DataIntegrityViolationException;
 import ru.yandex.practicum.filmorate.exception.DataUpdateException;
 import ru.yandex.practicum.filmorate.exception.FilmNotFoundException;
+import ru.yandex.practicum.filmorate.exception.GenreNotFoundException;
+import ru.yandex.practicum.filmorate.exception.MpaRatingNotFoundException;
 import ru.yandex.practicum.filmorate.exception.UserNotFoundException;
 import ru.yandex.practicum.filmorate.exception.ValidationException;
 import ru.yandex.practicum.filmorate.model.*;
 import ru.yandex.practicum.filmorate.service.UserService;
 import ru.yandex.practicum.filmorate.storage.FilmStorage;
 import ru.yandex.practicum.filmorate.service.impl.FilmServiceImpl;
+import ru.yandex.practicum.filmorate.storage.cache.FilmCache;
 import ru.yandex.practicum.filmorate.storage.dao.DirectorsStorage;
+import ru.yandex.practicum.filmorate.storage.dao.EventStorage;
 import ru.yandex.practicum.filmorate.storage.dao.FilmGenreStorage;
 import ru.yandex.practicum.filmorate.storage.dao.LikeStorage;
+import ru.yandex.practicum.filmorate.storage.index.FilmPopularityIndex;
+import ru.yandex.practicum.filmorate.storage.index.FilmRecommendationIndex;
+import ru.yandex.practicum.filmorate.storage.index.FilmSearchIndex;
+import ru.yandex.practicum.filmorate.storage.index.ReferenceDictionary;
 import java.time.LocalDate;
 import java.util.*;
 
@@ -41,6 +51,18 @@ class FilmServiceTest {
     LikeStorage likeStorage;
     @Mock
     DirectorsStorage directorsStorage;
+    @Mock
+    EventStorage eventStorage;
+    @Mock
+    FilmPopularityIndex popularityIndex;
+    @Mock
+    FilmRecommendationIndex recommendationIndex;
+    @Mock
+    FilmSearchIndex searchIndex;
+    @Spy
+    FilmCache filmCache = new FilmCache(100, 60);
+    @Spy
+    ReferenceDictionary dictionary = new ReferenceDictionary(null, null);
 
     @InjectMocks
     FilmServiceImpl filmService;
@@ -63,6 +85,7 @@ class FilmServiceTest {
     @BeforeEach
     public void beforeEach() {
         settingsForDefaults();
+        dictionary.load(List.of(new Genre(1), new Genre(2)), List.of(new Mpa(1), new Mpa(2)));
     }
 
     @Test
@@ -145,6 +168,120 @@ class FilmServiceTest {
         assertThat(returned).isEqualTo(firstFilm);
     }
 
+    @Test
+    void givenFilmWithUnknownReferences_whenAddNewFilm_thenThrowNotFoundWithoutStorageCall() {
+        dictionary.load(List.of(new Genre(1)), List.of(new Mpa(1)));
+        secondFilm.setMpa(new Mpa(2));
+        firstFilm.addGenre(new Genre(3));
+
+        assertThrows(MpaRatingNotFoundException.class, () -> filmService.create(secondFilm));
+        assertThrows(GenreNotFoundException.class, () -> filmService.create(firstFilm));
+        secondFilm.setMpa(Mpa.unresolved(99));
+        assertThrows(MpaRatingNotFoundException.class, () -> filmService.create(secondFilm));
+        verifyNoInteractions(filmStorage);
+    }
+
+    @Test
+    void givenChunkWithInvalidItems_whenImportFilms_thenSaveValidInOneBatchAndReportIndexes() {
+        Film directed = Film.builder()
+                .name("Directed film")
+                .description("Description directed")
+                .releaseDate(LocalDate.of(2010, 1, 1))
+                .duration(90)
+                .mpa(new Mpa(1))
+                .build();
+        directed.addDirector(new Director(7, "Director"));
+        Film undirected = Film.builder()
+                .name("Unknown director film")
+                .description("Description unknown")
+                .releaseDate(LocalDate.of(2010, 1, 1))
+                .duration(90)
+                .mpa(new Mpa(1))
+                .build();
+        undirected.addDirector(new Director(8, "Unknown"));
+        firstFilm.setId(5);
+        given(directorsStorage.findExistingIds(Set.of(7, 8))).willReturn(Set.of(7));
+        Map<Integer, Film> chunk = new LinkedHashMap<>();
+        chunk.put(0, directed);
+        chunk.put(1, firstFilm);
+        chunk.put(2, undirected);
+        chunk.put(3, secondFilm);
+
+        final BulkResult result = filmService.importFilms(chunk);
+
+        verify(filmStorage).saveAll(List.of(directed, secondFilm));
+        verify(filmStorage, never()).save(any(Film.class));
+        verify(popularityIndex, times(2)).put(any(Film.class));
+        assertThat(result.getReceived()).isEqualTo(4);
+        assertThat(result.getApplied()).isEqualTo(2);
+        assertThat(result.getErrors()).extracting(BulkResult.Failure::getIndex).containsExactly(1, 2);
+    }
+
+    @Test
+    void givenBatchFailsOnOneFilm_whenImportFilms_thenRetryOneByOneAndRejectOnlyBadFilm() {
+        Map<Integer, Film> chunk = new LinkedHashMap<>();
+        chunk.put(0, firstFilm);
+        chunk.put(1, secondFilm);
+        given(filmStorage.saveAll(List.of(firstFilm, secondFilm)))
+                .willThrow(new DataIntegrityViolationException("batch failed"));
+        given(filmStorage.saveAll(List.of(firstFilm))).willReturn(List.of(firstFilm));
+        given(filmStorage.saveAll(List.of(secondFilm)))
+                .willThrow(new DataIntegrityViolationException("second film failed"));
+
+        final BulkResult result = filmService.importFilms(chunk);
+
+        verify(filmStorage).saveAll(List.of(firstFilm));
+        verify(popularityIndex).put(firstFilm);
+        verify(popularityIndex, never()).put(secondFilm);
+        assertThat(result.getApplied()).isEqualTo(1);
+        assertThat(result.getErrors()).extracting(BulkResult.Failure::getIndex).containsExactly(1);
+        assertThat(result.getErrors().get(0).getMessage()).contains("second film failed");
+    }
+
+    @Test
+    void givenLikeCommands_whenApplyLikes_thenWriteNetChangesAndEmitEventsInOneBatch() {
+        given(filmStorage.findExistingIds(Set.of(1L, 2L, 9L))).willReturn(Set.of(1L, 2L));
+        given(userService.findExistingIds(Set.of(2L, 3L))).willReturn(Set.of(2L, 3L));
+        given(likeStorage.findExisting(anySet())).willReturn(Set.of(new Like(2, 2)));
+        given(likeStorage.saveAll(anyList())).willAnswer(invocation -> invocation.getArgument(0));
+        given(likeStorage.deleteAll(anyList())).willAnswer(invocation -> invocation.getArgument(0));
+        final List<LikeCommand> commands = List.of(
+                new LikeCommand(1, 2, Operation.ADD),
+                new LikeCommand(1, 2, Operation.ADD),
+                new LikeCommand(1, 3, Operation.REMOVE),
+                new LikeCommand(9, 2, Operation.ADD),
+                new LikeCommand(2, 2, Operation.REMOVE),
+                new LikeCommand(2, 3, Operation.UPDATE));
+
+        final BulkResult result = filmService.applyLikes(commands);
+
+        verify(likeStorage).saveAll(List.of(new Like(1, 2)));
+        verify(likeStorage).deleteAll(List.of(new Like(2, 2)));
+        verify(likeStorage, never()).save(any(Like.class));
+        verify(eventStorage).saveAll(argThat(events -> events.size() == 3));
+        verify(eventStorage, never()).save(any(Event.class));
+        verify(popularityIndex).changeLikeCount(1, 1);
+        verify(popularityIndex).changeLikeCount(2, -1);
+        assertThat(result.getApplied()).isEqualTo(3);
+        assertThat(result.getErrors()).extracting(BulkResult.Failure::getIndex).containsExactly(2, 3, 5);
+    }
+
+    @Test
+    void givenFilmReadTwiceAndLiked_whenGetFilmById_thenStorageQueriedOnce() {
+        firstFilm.setId(1);
+        given(filmStorage.findById(1)).willReturn(Optional.of(firstFilm));
+        given(filmStorage.existsById(1)).willReturn(Boolean.TRUE);
+        given(userService.existsById(2)).willReturn(Boolean.TRUE);
+
+        filmService.getById(1);
+        filmService.setLike(1, 2);
+        final Film returned = filmService.getById(1);
+
+        verify(filmStorage, times(1)).findById(1);
+        assertThat(returned.getLikes()).containsExactly(2L);
+        assertThat(filmService.getCacheStats().getHits()).isEqualTo(1);
+    }
+
     @Test
     void givenFilmIdNotPresentInStorage_whenGetFilmById_thenThrowNotFoundException() {
         given(filmStorage.findById(anyLong())).willReturn(Optional.empty());
@@ -240,16 +377,15 @@ class FilmServiceTest {
     void givenCountPopularFilms_whenGetPopularByYear_thenReturnPopularListWithTopFirstFilm() {
         firstFilm.setId(1);
         secondFilm.setId(2);
-        secondFilm.setReleaseDate(firstFilm.getReleaseDate());
-        firstFilm.addLike(1);
         final int year = firstFilm.getReleaseDate().getYear();
-        given(filmStorage.findAllByYear(anyInt())).willReturn(List.of(firstFilm.getId(), secondFilm.getId()));
-        given(filmStorage.findAllById(anyCollection())).willReturn(List.of(firstFilm, secondFilm));
+        given(popularityIndex.findTop(10, year, null)).willReturn(List.of(firstFilm.getId(), secondFilm.getId()));
+        given(filmStorage.findAllById(anyCollection())).willReturn(List.of(secondFilm, firstFilm));
         final Map<String, String> yearParam = Map.of("year", String.valueOf(year));
 
         final List<Film> mostPopular = filmService.getPopular(yearParam);
 
-        verify(filmStorage).findAllByYear(year);
+        verify(popularityIndex).findTop(10, year, null);
+        verify(filmStorage).findAllById(List.of(firstFilm.getId(), secondFilm.getId()));
         assertThat(mostPopular).isNotNull();
         assertThat(mostPopular.size()).isEqualTo(2);
         assertThat(mostPopular).isEqualTo(List.of(firstFilm, secondFilm));
@@ -259,16 +395,14 @@ class FilmServiceTest {
     void givenCountPopularFilms_whenGetPopularByYear_thenReturnPopularListWithTopSecondFilm() {
         firstFilm.setId(1);
         secondFilm.setId(2);
-        secondFilm.setReleaseDate(firstFilm.getReleaseDate());
-        secondFilm.addLike(1);
         final int year = firstFilm.getReleaseDate().getYear();
-        given(filmStorage.findAllByYear(anyInt())).willReturn(List.of(firstFilm.getId(), secondFilm.getId()));
+        given(popularityIndex.findTop(10, year, null)).willReturn(List.of(secondFilm.getId(), firstFilm.getId()));
         given(filmStorage.findAllById(anyCollection())).willReturn(List.of(firstFilm, secondFilm));
         final Map<String, String> yearParam = Map.of("year", String.valueOf(year));
 
         final List<Film> mostPopular = filmService.getPopular(yearParam);
 
-        verify(filmStorage).findAllByYear(year);
+        verify(popularityIndex).findTop(10, year, null);
         assertThat(mostPopular).isNotNull();
         assertThat(mostPopular.size()).isEqualTo(2);
         assertThat(mostPopular).isEqualTo(List.of(secondFilm, firstFilm));
@@ -279,39 +413,91 @@ class FilmServiceTest {
         firstFilm.setId(1);
         secondFilm.setId(2);
         final int genreId = 2;
-        firstFilm.addGenre(new Genre(genreId));
-        secondFilm.addGenre(new Genre(genreId));
-        firstFilm.addLike(1);
-        given(filmGenreStorage.findAllByGenre(genreId)).willReturn(List.of(firstFilm.getId(), secondFilm.getId()));
+        given(popularityIndex.findTop(10, null, genreId)).willReturn(List.of(firstFilm.getId(), secondFilm.getId()));
         given(filmStorage.findAllById(anyCollection())).willReturn(List.of(firstFilm, secondFilm));
         final Map<String, String> genreParam = Map.of("genreId", String.valueOf(genreId));
 
         final List<Film> mostPopular = filmService.getPopular(genreParam);
 
-        verify(filmGenreStorage).findAllByGenre(genreId);
+        verify(popularityIndex).findTop(10, null, genreId);
         assertThat(mostPopular).isNotNull();
         assertThat(mostPopular.size()).isEqualTo(2);
         assertThat(mostPopular).isEqualTo(List.of(firstFilm, secondFilm));
     }
 
     @Test
-    void givenCountPopularFilms_whenGetPopularByGenre_thenReturnPopularListWithTopSecondFilm() {
-        firstFilm.setId(1);
+    void givenCountYearAndGenre_whenGetPopular_thenHydrateOnlyRequestedPage() {
         secondFilm.setId(2);
+        final int year = secondFilm.getReleaseDate().getYear();
         final int genreId = 2;
-        firstFilm.addGenre(new Genre(genreId));
-        secondFilm.addGenre(new Genre(genreId));
-        secondFilm.addLike(1);
-        given(filmGenreStorage.findAllByGenre(genreId)).willReturn(List.of(firstFilm.getId(), secondFilm.getId()));
+        given(popularityIndex.findTop(1, year, genreId)).willReturn(List.of(secondFilm.getId()));
+        given(filmStorage.findAllById(anyCollection())).willReturn(List.of(secondFilm));
+        final Map<String, String> params = Map.of(
+                "count", "1",
+                "year", String.valueOf(year),
+                "genreId", String.valueOf(genreId));
+
+        final List<Film> mostPopular = filmService.getPopular(params);
+
+        verify(popularityIndex).findTop(1, year, genreId);
+        verify(filmStorage).findAllById(List.of(secondFilm.getId()));
+        assertThat(mostPopular).isEqualTo(List.of(secondFilm));
+    }
+
+    @Test
+    void givenTwoUsers_whenGetCommonFilmPopular_thenKeepStorageRankingOrder() {
+        firstFilm.setId(1);
+        secondFilm.setId(2);
+        given(userService.existsById(anyLong())).willReturn(Boolean.TRUE);
+        given(likeStorage.findCommonLikes(1, 2, 5)).willReturn(List.of(secondFilm.getId(), firstFilm.getId()));
         given(filmStorage.findAllById(anyCollection())).willReturn(List.of(firstFilm, secondFilm));
-        final Map<String, String> genreParam = Map.of("genreId", String.valueOf(genreId));
 
-        final List<Film> mostPopular = filmService.getPopular(genreParam);
+        final List<Film> common = filmService.getCommonFilmPopular(1, 2, 5);
 
-        verify(filmGenreStorage).findAllByGenre(genreId);
-        assertThat(mostPopular).isNotNull();
-        assertThat(mostPopular.size()).isEqualTo(2);
-        assertThat(mostPopular).isEqualTo(List.of(secondFilm, firstFilm));
+        assertThat(common).containsExactly(secondFilm, firstFilm);
+    }
+
+    @Test
+    void givenNonPositiveCount_whenGetPopular_thenThrowValidationException() {
+        final Throwable exception = assertThrows(ValidationException.class, () ->
+                filmService.getPopular(Map.of("count", "-1")));
+
+        assertThat(exception.getMessage()).isEqualTo("Количество популярных фильмов должно быть положительным");
+        verifyNoInteractions(popularityIndex);
+    }
+
+    @Test
+    void givenNonPositiveCount_whenGetCommonFilmPopular_thenThrowValidationException() {
+        given(userService.existsById(anyLong())).willReturn(Boolean.TRUE);
+
+        final Throwable exception = assertThrows(ValidationException.class, () ->
+                filmService.getCommonFilmPopular(1, 2, 0));
+
+        assertThat(exception.getMessage()).isEqualTo("Количество общих фильмов должно быть положительным");
+        verifyNoInteractions(likeStorage);
+    }
+
+    @Test
+    void givenLiteralMode_whenSearchByParams_thenQueryStoragesBypassingIndex() {
+        firstFilm.setId(1);
+        secondFilm.setId(2);
+        given(filmStorage.findBySubString("50%")).willReturn(List.of(firstFilm.getId()));
+        given(directorsStorage.findBySubString("50%")).willReturn(List.of(secondFilm.getId()));
+        given(filmStorage.findAllById(anyCollection())).willReturn(new ArrayList<>(List.of(firstFilm, secondFilm)));
+
+        final List<Film> found = filmService.searchByParams("50%", List.of("title", "director"), "LITERAL");
+
+        verify(filmStorage).findAllById(List.of(firstFilm.getId(), secondFilm.getId()));
+        verifyNoInteractions(searchIndex);
+        assertThat(found).containsExactlyInAnyOrder(firstFilm, secondFilm);
+        assertThat(filmService.explainSearch("50%", "literal")).isEqualTo("literal:lower-like");
+    }
+
+    @Test
+    void givenUnknownMode_whenSearchByParams_thenThrowValidationException() {
+        assertThrows(ValidationException.class,
+                () -> filmService.searchByParams("film", List.of("title"), "regex"));
+        verifyNoInteractions(filmStorage, searchIndex);
     }
 
     static void settingsForDefaults() {
@@ -323,6 +509,7 @@ class FilmServiceTest {
         firstFilm.setReleaseDate(LocalDate.of(2000, 1, 1));
         firstFilm.setDuration(120);
         firstFilm.setMpa(new Mpa(1));
+        firstFilm.getGenres().clear();
         firstFilm.clearLikes();
 
         secondFilm.setId(0);
@@ -0,0 +1,55 @@
+package ru.yandex.practicum.filmorate.unit.film;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.yandex.practicum.filmorate.storage.index.KnownIdsIndex;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+
+class KnownIdsIndexTest {
+
+    static final int EXPECTED_IDS = 1000;
+    static final int ADDED_IDS = 50 * EXPECTED_IDS;
+
+    KnownIdsIndex index;
+
+    @BeforeEach
+    void beforeEach() {
+        JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+        given(jdbcTemplate.queryForObject(anyString(), eq(Long.class))).willReturn(0L);
+        index = new KnownIdsIndex(jdbcTemplate, EXPECTED_IDS);
+        index.rebuild();
+    }
+
+    @Test
+    void givenMoreIdsThanExpected_whenMightContain_thenAllAddedIdsFound() {
+        for (long id = 1; id <= ADDED_IDS; id++) {
+            index.addFilm(id);
+        }
+
+        for (long id = 1; id <= ADDED_IDS; id++) {
+            assertThat(index.mightContainFilm(id)).isTrue();
+        }
+    }
+
+    @Test
+    void givenMoreIdsThanExpected_whenMightContainUnknownId_thenFalsePositiveRateStaysBounded() {
+        for (long id = 1; id <= ADDED_IDS; id++) {
+            index.addFilm(id);
+        }
+
+        int falsePositives = 0;
+        for (long id = ADDED_IDS + 1; id <= 2L * ADDED_IDS; id++) {
+            if (index.mightContainFilm(id)) {
+                falsePositives++;
+            }
+        }
+
+        assertThat(falsePositives).isLessThan(ADDED_IDS / 50);
+    }
+
+}
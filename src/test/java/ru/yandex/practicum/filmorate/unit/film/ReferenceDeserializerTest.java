@@ -0,0 +1,55 @@
+package ru.yandex.practicum.filmorate.unit.film;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.exc.MismatchedInputException;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import java.util.List;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ReferenceDeserializerTest {
+
+    final ObjectMapper mapper = new ObjectMapper();
+
+    @Test
+    void givenGenreObjects_whenDeserialize_thenSharedInstancesAndExtraFieldsSkipped() throws Exception {
+        final List<Genre> genres = mapper.readValue(
+                "[{\"id\": 1}, {\"name\": \"Драма\", \"id\": 2}, {\"id\": 1, \"extra\": {\"nested\": [1, 2]}}]",
+                new TypeReference<>() {
+                });
+
+        assertThat(genres).hasSize(3);
+        assertThat(genres.get(0)).isSameAs(Genre.of(1));
+        assertThat(genres.get(1)).isSameAs(Genre.of(2));
+        assertThat(genres.get(2)).isSameAs(Genre.of(1));
+    }
+
+    @Test
+    void givenMpaObject_whenDeserialize_thenSharedInstanceWithName() throws Exception {
+        final Mpa mpa = mapper.readValue("{\"id\": 3}", Mpa.class);
+
+        assertThat(mpa).isSameAs(Mpa.of(3));
+        assertThat(mpa.getName()).isEqualTo("PG-13");
+    }
+
+    @Test
+    void givenUnknownId_whenDeserialize_thenUnresolvedReferenceWithoutName() throws Exception {
+        final Genre genre = mapper.readValue("{\"id\": 99}", Genre.class);
+        final Mpa mpa = mapper.readValue("{\"id\": 0}", Mpa.class);
+
+        assertThat(genre.getId()).isEqualTo(99);
+        assertThat(genre.getName()).isNull();
+        assertThat(mpa.getId()).isZero();
+        assertThat(mpa.getName()).isNull();
+    }
+
+    @Test
+    void givenMissingId_whenDeserialize_thenMappingException() {
+        assertThrows(MismatchedInputException.class, () -> mapper.readValue("{\"name\": \"G\"}", Mpa.class));
+        assertThrows(MismatchedInputException.class, () -> mapper.readValue("[1]", Genre.class));
+    }
+
+}
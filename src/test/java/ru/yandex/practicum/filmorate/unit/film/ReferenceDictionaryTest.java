@@ -0,0 +1,40 @@
+package ru.yandex.practicum.filmorate.unit.film;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.Mpa;
+import ru.yandex.practicum.filmorate.storage.index.ReferenceDictionary;
+import java.util.List;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ReferenceDictionaryTest {
+
+    ReferenceDictionary dictionary;
+
+    @BeforeEach
+    void beforeEach() {
+        dictionary = new ReferenceDictionary(null, null);
+        dictionary.load(List.of(new Genre(1), new Genre(2), new Genre(4)), List.of(new Mpa(1), new Mpa(3)));
+    }
+
+    @Test
+    void givenLoadedEntries_whenFindById_thenSameInstanceOrEmpty() {
+        assertThat(dictionary.findGenre(2)).containsSame(dictionary.getGenres().get(1));
+        assertThat(dictionary.findGenre(4).map(Genre::getName)).contains("Триллер");
+        assertThat(dictionary.findGenre(3)).isEmpty();
+        assertThat(dictionary.findGenre(0)).isEmpty();
+        assertThat(dictionary.findGenre(Long.MAX_VALUE)).isEmpty();
+        assertThat(dictionary.findMpa(3).map(Mpa::getName)).contains("PG-13");
+        assertThat(dictionary.findMpa(2)).isEmpty();
+    }
+
+    @Test
+    void givenLoadedEntries_whenGetAll_thenImmutableListInLoadOrder() {
+        assertThat(dictionary.getGenres()).extracting(Genre::getId).containsExactly(1, 2, 4);
+        assertThat(dictionary.getRatings()).extracting(Mpa::getId).containsExactly(1, 3);
+        assertThrows(UnsupportedOperationException.class, () -> dictionary.getGenres().add(new Genre(5)));
+    }
+
+}
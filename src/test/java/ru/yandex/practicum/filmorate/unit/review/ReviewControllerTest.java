@@ -57,7 +57,7 @@ class ReviewControllerTest {
 
     @Test
     void testRemoveDislikeReview() throws Exception {
-        doNothing().when(reviewService).likeReview(anyLong(), anyLong());
+        doNothing().when(reviewService).removeDislikeReview(anyLong(), anyLong());
         MockHttpServletRequestBuilder requestBuilder = MockMvcRequestBuilders
                 .delete("/reviews/{reviewId}/dislike/{userId}", 1L, 1L);
         MockMvcBuilders.standaloneSetup(reviewController)
@@ -68,7 +68,7 @@ class ReviewControllerTest {
 
     @Test
     void testRemoveDislikeReview2() throws Exception {
-        doNothing().when(reviewService).likeReview(anyLong(), anyLong());
+        doNothing().when(reviewService).removeDislikeReview(anyLong(), anyLong());
         MockHttpServletRequestBuilder deleteResult = MockMvcRequestBuilders.delete("/reviews/{reviewId}/dislike/{userId}",
                 1L, 1L);
         deleteResult.characterEncoding("Encoding");
@@ -189,7 +189,7 @@ class ReviewControllerTest {
 
     @Test
     void testRemoveLikeReview() throws Exception {
-        doNothing().when(reviewService).dislikeReview(anyLong(), anyLong());
+        doNothing().when(reviewService).removeLikeReview(anyLong(), anyLong());
         MockHttpServletRequestBuilder requestBuilder = MockMvcRequestBuilders.delete("/reviews/{reviewId}/like/{userId}",
                 1L, 1L);
         MockMvcBuilders.standaloneSetup(reviewController)
@@ -200,7 +200,7 @@ class ReviewControllerTest {
 
     @Test
     void testRemoveLikeReview2() throws Exception {
-        doNothing().when(reviewService).dislikeReview(anyLong(), anyLong());
+        doNothing().when(reviewService).removeLikeReview(anyLong(), anyLong());
         MockHttpServletRequestBuilder deleteResult = MockMvcRequestBuilders.delete("/reviews/{reviewId}/like/{userId}",
                 1L, 1L);
         deleteResult.characterEncoding("Encoding");
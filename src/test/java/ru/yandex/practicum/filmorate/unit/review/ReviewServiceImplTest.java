@@ -221,5 +221,27 @@ class ReviewServiceImplTest {
         verify(dAOValidator).validateUserBd((Long) any());
     }
 
+    @Test
+    void testRemoveLikeReview() {
+        doNothing().when(reviewStorage).removeLikeReview((Long) any(), (Long) any());
+        doNothing().when(dAOValidator).validateReviewDB((Long) any());
+        doNothing().when(dAOValidator).validateUserBd((Long) any());
+        reviewServiceImpl.removeLikeReview(1L, 1L);
+        verify(reviewStorage).removeLikeReview((Long) any(), (Long) any());
+        verify(dAOValidator).validateReviewDB((Long) any());
+        verify(dAOValidator).validateUserBd((Long) any());
+    }
+
+    @Test
+    void testRemoveDislikeReview() {
+        doNothing().when(reviewStorage).removeDislikeReview((Long) any(), (Long) any());
+        doNothing().when(dAOValidator).validateReviewDB((Long) any());
+        doNothing().when(dAOValidator).validateUserBd((Long) any());
+        reviewServiceImpl.removeDislikeReview(1L, 1L);
+        verify(reviewStorage).removeDislikeReview((Long) any(), (Long) any());
+        verify(dAOValidator).validateReviewDB((Long) any());
+        verify(dAOValidator).validateUserBd((Long) any());
+    }
+
 }
 
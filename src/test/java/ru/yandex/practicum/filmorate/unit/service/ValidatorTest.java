@@ -1,7 +1,6 @@
 package ru.yandex.practicum.filmorate.unit.service;
 
 import org.junit.jupiter.api.Test;
-import ru.yandex.practicum.filmorate.exception.FilmNotFoundException;
 import ru.yandex.practicum.filmorate.exception.ValidationException;
 import ru.yandex.practicum.filmorate.model.Film;
 import ru.yandex.practicum.filmorate.model.Mpa;
@@ -10,7 +9,6 @@ import ru.yandex.practicum.filmorate.model.User;
 import ru.yandex.practicum.filmorate.service.Validator;
 
 import java.time.LocalDate;
-import java.util.ArrayList;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -79,34 +77,5 @@ class ValidatorTest {
         assertEquals("00:00", review.getReviewDate().toLocalTime().toString());
         assertEquals(1L, review.getFilmId());
     }
-
-    @Test
-    void testValidateExistFilm() {
-        assertThrows(FilmNotFoundException.class, () -> Validator.validateExistFilm(new ArrayList<>(), 1L));
-    }
-
-    @Test
-    void testValidateExistUser() {
-        assertThrows(FilmNotFoundException.class, () -> Validator.validateExistUser(new ArrayList<>(), 1L));
-    }
-
-    @Test
-    void testValidateExistUser2() {
-        ArrayList<Long> userIdList = new ArrayList<>();
-        userIdList.add(1L);
-        Validator.validateExistUser(userIdList, 1L);
-    }
-
-    @Test
-    void testValidateExistReview() {
-        assertThrows(FilmNotFoundException.class, () -> Validator.validateExistReview(new ArrayList<>(), 1L));
-    }
-
-    @Test
-    void testValidateExistReview2() {
-        ArrayList<Long> reviewIdList = new ArrayList<>();
-        reviewIdList.add(1L);
-        Validator.validateExistReview(reviewIdList, 1L);
-    }
 }
 
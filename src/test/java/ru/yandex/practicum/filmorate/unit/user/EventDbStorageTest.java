@@ -0,0 +1,127 @@
+package ru.yandex.practicum.filmorate.unit.user;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.yandex.practicum.filmorate.exception.DataBaseResponseException;
+import ru.yandex.practicum.filmorate.model.Event;
+import ru.yandex.practicum.filmorate.model.EventType;
+import ru.yandex.practicum.filmorate.model.Operation;
+import ru.yandex.practicum.filmorate.storage.dao.impl.EventDbStorage;
+import ru.yandex.practicum.filmorate.storage.index.FriendsTimelineCache;
+import java.time.Duration;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+class EventDbStorageTest {
+
+    JdbcTemplate jdbcTemplate;
+    FriendsTimelineCache timelines;
+    EventDbStorage eventStorage;
+
+    @BeforeEach
+    void beforeEach() {
+        jdbcTemplate = mock(JdbcTemplate.class);
+        timelines = mock(FriendsTimelineCache.class);
+        eventStorage = new EventDbStorage(jdbcTemplate, timelines, EventDbStorage.Durability.ASYNC, 10, 10, 60000);
+    }
+
+    @AfterEach
+    void afterEach() throws InterruptedException {
+        eventStorage.shutdown();
+    }
+
+    @Test
+    void givenWriterFailsWithError_whenFlush_thenWrapIntoRuntimeException() {
+        AssertionError error = new AssertionError("writer failed");
+        given(jdbcTemplate.execute(any(ConnectionCallback.class))).willThrow(error);
+        eventStorage.save(newEvent());
+
+        final DataBaseResponseException exception = assertThrows(DataBaseResponseException.class,
+                () -> eventStorage.flush());
+
+        assertThat(exception.getCause()).isSameAs(error);
+    }
+
+    @Test
+    void givenWriterFailsWithRuntimeException_whenFlush_thenRethrowIt() {
+        IllegalStateException failure = new IllegalStateException("writer failed");
+        given(jdbcTemplate.execute(any(ConnectionCallback.class))).willThrow(failure);
+        eventStorage.save(newEvent());
+
+        final IllegalStateException exception = assertThrows(IllegalStateException.class,
+                () -> eventStorage.flush());
+
+        assertThat(exception).isSameAs(failure);
+    }
+
+    @Test
+    void givenEventRejectedByDatabase_whenFlush_thenCountedAsFailed() {
+        given(jdbcTemplate.execute(any(ConnectionCallback.class)))
+                .willThrow(new DataIntegrityViolationException("user not found"));
+        eventStorage.save(newEvent());
+
+        eventStorage.flush();
+
+        assertThat(eventStorage.getStats().getFailed()).isEqualTo(1);
+        assertThat(eventStorage.getStats().getQueued()).isZero();
+    }
+
+    @Test
+    void givenTimelinePublishFails_whenSaveWithFlushDurability_thenEventStillCompleted() throws InterruptedException {
+        useFlushDurability();
+        doThrow(new IllegalStateException("timeline failed")).when(timelines).publish(any(Event.class));
+
+        assertTimeoutPreemptively(Duration.ofSeconds(5), () -> eventStorage.save(newEvent()));
+
+        verify(timelines).evictUser(1L);
+        assertThat(eventStorage.getStats().getWritten()).isEqualTo(1);
+    }
+
+    @Test
+    void givenWriterFailsWithError_whenSaveWithFlushDurability_thenCallerReleased() throws InterruptedException {
+        useFlushDurability();
+        given(jdbcTemplate.execute(any(ConnectionCallback.class))).willThrow(new AssertionError("writer failed"));
+
+        assertTimeoutPreemptively(Duration.ofSeconds(5), () ->
+                assertThrows(DataBaseResponseException.class, () -> eventStorage.save(newEvent())));
+
+        assertThat(eventStorage.getStats().getFailed()).isEqualTo(1);
+    }
+
+    @Test
+    void givenStorageShutDown_whenSave_thenEventWrittenSynchronously() throws InterruptedException {
+        eventStorage.shutdown();
+
+        eventStorage.save(newEvent());
+
+        verify(jdbcTemplate).execute(any(ConnectionCallback.class));
+        assertThat(eventStorage.getStats().getQueued()).isZero();
+        assertThat(eventStorage.getStats().getWritten()).isEqualTo(1);
+    }
+
+    private void useFlushDurability() throws InterruptedException {
+        eventStorage.shutdown();
+        eventStorage = new EventDbStorage(jdbcTemplate, timelines, EventDbStorage.Durability.FLUSH, 10, 10, 60000);
+    }
+
+    private static Event newEvent() {
+        return Event.builder()
+                .timestamp(1L)
+                .eventType(EventType.LIKE)
+                .operation(Operation.ADD)
+                .userId(1L)
+                .entityId(1L)
+                .build();
+    }
+
+}
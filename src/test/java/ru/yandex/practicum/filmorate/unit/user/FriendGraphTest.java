@@ -0,0 +1,146 @@
+package ru.yandex.practicum.filmorate.unit.user;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.exception.SearchLimitExceededException;
+import ru.yandex.practicum.filmorate.model.FriendshipStatus;
+import ru.yandex.practicum.filmorate.storage.index.FriendGraph;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class FriendGraphTest {
+
+    FriendGraph graph;
+
+    @BeforeEach
+    void beforeEach() {
+        graph = new FriendGraph(null, 2, 100, 100000, 100000);
+        graph.addFriend(1, 5, FriendshipStatus.CONFIRMED);
+        graph.addFriend(1, 3, FriendshipStatus.CONFIRMED);
+        graph.addFriend(1, 4, FriendshipStatus.PENDING);
+        graph.addFriend(2, 3, FriendshipStatus.CONFIRMED);
+        graph.addFriend(2, 5, FriendshipStatus.PENDING);
+        graph.addFriend(2, 6, FriendshipStatus.CONFIRMED);
+    }
+
+    @Test
+    void givenRequestsAndConfirmations_whenFindFriends_thenSortedVisibleFriends() {
+        assertThat(graph.findFriends(1)).containsExactly(3L, 4L, 5L);
+        assertThat(graph.findFriends(4)).isEmpty();
+        assertThat(graph.findFriends(5)).containsExactly(1L);
+        assertThat(graph.findFriends(3)).containsExactly(1L, 2L);
+    }
+
+    @Test
+    void givenOverlappingFriends_whenFindMutualFriends_thenIntersection() {
+        assertThat(graph.findMutualFriends(1, 2)).containsExactly(3L, 5L);
+        assertThat(graph.findMutualFriends(2, 1)).containsExactly(3L, 5L);
+        assertThat(graph.findMutualFriends(1, 7)).isEmpty();
+    }
+
+    @Test
+    void givenPendingRequestConfirmed_whenFindFriends_thenVisibleFromBothSides() {
+        graph.addFriend(4, 1, FriendshipStatus.CONFIRMED);
+
+        assertThat(graph.findFriends(4)).containsExactly(1L);
+        assertThat(graph.findFriends(1)).containsExactly(3L, 4L, 5L);
+    }
+
+    @Test
+    void givenFriendshipOrUserRemoved_whenFindMutualFriends_thenNoLongerMutual() {
+        graph.removeFriendship(2, 5);
+        assertThat(graph.findMutualFriends(1, 2)).containsExactly(3L);
+
+        graph.removeUser(3);
+        assertThat(graph.findMutualFriends(1, 2)).isEmpty();
+        assertThat(graph.findFriends(3)).isEmpty();
+        assertThat(graph.findFriends(2)).containsExactly(6L);
+    }
+
+    @Test
+    void givenLargeFriendLists_whenFindMutualFriends_thenEveryCommonId() {
+        for (long id = 10_000; id > 100; id--) {
+            graph.addFriend(7, id, FriendshipStatus.PENDING);
+            if (id % 3 == 0) {
+                graph.addFriend(8, id, FriendshipStatus.PENDING);
+            }
+        }
+
+        assertThat(graph.findMutualFriends(7, 8)).hasSize(3300).isSorted().allMatch(id -> id % 3 == 0);
+    }
+
+    @Test
+    void givenFriendsOfFriends_whenSuggestFriends_thenRankedByMutualCountExcludingFriends() {
+        graph.addFriend(3, 9, FriendshipStatus.CONFIRMED);
+        graph.addFriend(5, 9, FriendshipStatus.CONFIRMED);
+        graph.addFriend(5, 8, FriendshipStatus.CONFIRMED);
+
+        assertThat(graph.suggestFriends(1, 10)).containsExactly(9L, 2L, 8L);
+        assertThat(graph.suggestFriends(1, 2)).containsExactly(9L, 2L);
+        assertThat(graph.suggestFriends(1, 1)).containsExactly(9L);
+        assertThat(graph.suggestFriends(1, 0)).isEmpty();
+        assertThat(graph.suggestFriends(7, 10)).isEmpty();
+    }
+
+    @Test
+    void givenCachedSuggestions_whenFriendshipChanges_thenSuggestionsRecomputed() {
+        assertThat(graph.suggestFriends(1, 2)).containsExactly(2L);
+
+        graph.addFriend(5, 8, FriendshipStatus.CONFIRMED);
+        assertThat(graph.suggestFriends(1, 2)).containsExactly(2L, 8L);
+
+        graph.addFriend(1, 2, FriendshipStatus.PENDING);
+        assertThat(graph.suggestFriends(1, 2)).containsExactly(6L, 8L);
+
+        graph.removeUser(8);
+        assertThat(graph.suggestFriends(1, 2)).containsExactly(6L);
+
+        graph.removeFriendship(1, 2);
+        assertThat(graph.suggestFriends(1, 2)).containsExactly(2L);
+    }
+
+    @Test
+    void givenFriendChains_whenFindPath_thenShortestChainFollowingVisibleFriends() {
+        graph.addFriend(6, 7, FriendshipStatus.CONFIRMED);
+        graph.addFriend(5, 7, FriendshipStatus.CONFIRMED);
+
+        assertThat(graph.findPath(1, 6, 6)).containsExactly(1L, 3L, 2L, 6L);
+        assertThat(graph.findPath(1, 7, 6)).containsExactly(1L, 5L, 7L);
+        assertThat(graph.findPath(7, 4, 6)).containsExactly(7L, 5L, 1L, 4L);
+        assertThat(graph.findPath(4, 1, 6)).isEmpty();
+        assertThat(graph.findPath(1, 1, 1)).containsExactly(1L);
+    }
+
+    @Test
+    void givenLongChain_whenFindPath_thenBoundedByDepthAndExpansionBudget() {
+        for (long id = 100; id < 120; id++) {
+            graph.addFriend(id, id + 1, FriendshipStatus.CONFIRMED);
+        }
+
+        assertThat(graph.findPath(100, 120, 20)).hasSize(21).startsWith(100L, 101L).endsWith(119L, 120L);
+        assertThat(graph.findPath(100, 120, 19)).isEmpty();
+
+        graph = new FriendGraph(null, 2, 100, 100000, 10);
+        for (long id = 100; id < 120; id++) {
+            graph.addFriend(id, id + 1, FriendshipStatus.CONFIRMED);
+        }
+
+        assertThat(graph.findPath(100, 110, 20)).hasSize(11);
+        assertThrows(SearchLimitExceededException.class, () -> graph.findPath(100, 120, 20));
+    }
+
+    @Test
+    void givenHighDegreeFriends_whenSuggestFriends_thenTraversalStopsAtEdgeBudget() {
+        graph = new FriendGraph(null, 2, 100, 10, 100000);
+        for (long friendId = 100; friendId < 110; friendId++) {
+            graph.addFriend(1, friendId, FriendshipStatus.CONFIRMED);
+            for (long candidateId = 1000; candidateId < 1100; candidateId++) {
+                graph.addFriend(friendId, candidateId, FriendshipStatus.PENDING);
+            }
+        }
+
+        assertThat(graph.suggestFriends(1, 100)).containsExactly(1000L, 1001L, 1002L, 1003L, 1004L,
+                1005L, 1006L, 1007L, 1008L);
+    }
+
+}
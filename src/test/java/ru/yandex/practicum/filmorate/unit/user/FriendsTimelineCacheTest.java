@@ -0,0 +1,97 @@
+package ru.yandex.practicum.filmorate.unit.user;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.model.Event;
+import ru.yandex.practicum.filmorate.model.EventType;
+import ru.yandex.practicum.filmorate.model.Operation;
+import ru.yandex.practicum.filmorate.storage.index.FriendsTimelineCache;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FriendsTimelineCacheTest {
+
+    FriendsTimelineCache timelines;
+
+    @BeforeEach
+    void beforeEach() {
+        timelines = new FriendsTimelineCache(3, 2);
+    }
+
+    @Test
+    void givenColdUser_whenFindPage_thenEmpty() {
+        assertThat(timelines.findPage(1, Long.MAX_VALUE, 10)).isEmpty();
+    }
+
+    @Test
+    void givenLoadedTimeline_whenFriendPublishes_thenNewestFirst() {
+        timelines.register(1, List.of(2L, 3L));
+        timelines.fill(1, List.of(event(5, 2)));
+
+        timelines.publish(event(6, 3));
+        timelines.publish(event(7, 4));
+
+        assertThat(timelines.findPage(1, Long.MAX_VALUE, 10))
+                .map(FriendsTimelineCacheTest::ids)
+                .contains(List.of(6L, 5L));
+        assertThat(timelines.findPage(1, 6, 10))
+                .map(FriendsTimelineCacheTest::ids)
+                .contains(List.of(5L));
+    }
+
+    @Test
+    void givenRingOverflow_whenPageBeyondRing_thenEmpty() {
+        timelines.register(1, List.of(2L));
+        timelines.fill(1, List.of());
+        for (long id = 1; id <= 4; id++) {
+            timelines.publish(event(id, 2));
+        }
+
+        assertThat(timelines.findPage(1, Long.MAX_VALUE, 3))
+                .map(FriendsTimelineCacheTest::ids)
+                .contains(List.of(4L, 3L, 2L));
+        assertThat(timelines.findPage(1, 3, 2)).isEmpty();
+    }
+
+    @Test
+    void givenFriendshipChanged_whenEvict_thenNoLongerFannedOut() {
+        timelines.register(1, List.of(2L));
+        timelines.fill(1, List.of());
+
+        timelines.evict(1);
+        timelines.publish(event(1, 2));
+
+        assertThat(timelines.contains(1)).isFalse();
+        assertThat(timelines.findPage(1, Long.MAX_VALUE, 1)).isEqualTo(Optional.empty());
+    }
+
+    @Test
+    void givenMoreUsersThanLimit_whenRegister_thenLeastRecentlyUsedEvicted() {
+        timelines.register(1, List.of(4L));
+        timelines.register(2, List.of(4L));
+        timelines.findPage(1, Long.MAX_VALUE, 1);
+        timelines.register(3, List.of(4L));
+
+        assertThat(timelines.contains(1)).isTrue();
+        assertThat(timelines.contains(2)).isFalse();
+        assertThat(timelines.contains(3)).isTrue();
+    }
+
+    static Event event(long eventId, long userId) {
+        return Event.builder()
+                .eventId(eventId)
+                .userId(userId)
+                .entityId(1)
+                .timestamp(eventId)
+                .eventType(EventType.LIKE)
+                .operation(Operation.ADD)
+                .build();
+    }
+
+    static List<Long> ids(List<Event> events) {
+        return events.stream().map(Event::getEventId).collect(Collectors.toList());
+    }
+
+}
@@ -13,20 +13,28 @@ import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.http.converter.HttpMessageNotReadableException;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.web.HttpRequestMethodNotSupportedException;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.method.annotation.MethodArgumentTypeMismatchException;
 import ru.yandex.practicum.filmorate.controller.UserController;
+import ru.yandex.practicum.filmorate.exception.SearchLimitExceededException;
+import ru.yandex.practicum.filmorate.model.Event;
+import ru.yandex.practicum.filmorate.model.EventType;
+import ru.yandex.practicum.filmorate.model.Operation;
 import ru.yandex.practicum.filmorate.model.User;
 import ru.yandex.practicum.filmorate.service.FilmService;
 import ru.yandex.practicum.filmorate.service.UserService;
+import ru.yandex.practicum.filmorate.storage.dao.EventStorage;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import java.time.LocalDate;
 import java.util.List;
 import java.util.Random;
+import java.util.stream.Stream;
 
 @WebMvcTest(UserController.class)
 class UserControllerTest {
@@ -207,6 +215,46 @@ class UserControllerTest {
                 .andExpect(jsonPath("$[0].birthday", is(mutualFriend.getBirthday().toString())));
     }
 
+    @Test
+    void handleSuggestFriends_returnSuggestedUsersInRankOrder() throws Exception {
+        when(userService.getFriendSuggestions(user.getId(), 2)).thenReturn(List.of(friend, user));
+
+        var mvcRequest = get(String.format("/users/%d/friends/suggestions", user.getId())).param("count", "2");
+
+        mvc.perform(mvcRequest).andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[0].id", is((int) friend.getId())))
+                .andExpect(jsonPath("$[1].id", is((int) user.getId())));
+        verify(userService).getFriendSuggestions(user.getId(), 2);
+    }
+
+    @Test
+    void handleReturnFriendPath_returnUsersAlongChain() throws Exception {
+        when(userService.getFriendPath(user.getId(), friend.getId(), 3)).thenReturn(List.of(user, friend));
+
+        var mvcRequest = get(String.format("/users/%d/path/%d", user.getId(), friend.getId()))
+                .param("maxDepth", "3");
+
+        mvc.perform(mvcRequest).andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[0].id", is((int) user.getId())))
+                .andExpect(jsonPath("$[1].id", is((int) friend.getId())));
+        verify(userService).getFriendPath(user.getId(), friend.getId(), 3);
+    }
+
+    @Test
+    void handleReturnFriendPath_searchLimitExceeded_returnUnprocessableEntity() throws Exception {
+        when(userService.getFriendPath(user.getId(), friend.getId(), 6))
+                .thenThrow(new SearchLimitExceededException("Превышен лимит поиска"));
+
+        var mvcRequest = get(String.format("/users/%d/path/%d", user.getId(), friend.getId()));
+
+        mvc.perform(mvcRequest).andExpect(status().isUnprocessableEntity())
+                .andExpect(jsonPath("$.message", is("Превышен лимит поиска")));
+    }
+
     @Test
     void handleAddNew_RequestBodyHasWrongJson_ThrowHttpMessageNotReadableEx_returnErrorMessage() throws Exception {
         lenient().when(userService.create(any(User.class))).thenReturn(user);
@@ -283,6 +331,57 @@ class UserControllerTest {
                 .andExpect(jsonPath("$.description", matchesPattern("^(POST|PUT|PATCH|DELETE)$")));
     }
 
+    @Test
+    void handleReturnEvents_withCursor_streamEventsPage() throws Exception {
+        final Event event = Event.builder()
+                .eventId(6)
+                .timestamp(1L)
+                .userId(user.getId())
+                .entityId(2)
+                .eventType(EventType.LIKE)
+                .operation(Operation.ADD)
+                .build();
+        given(userService.getEvents(user.getId(), 5, 1)).willReturn(() -> Stream.of(event));
+
+        MvcResult result = mvc.perform(get("/users/{id}/feed", user.getId())
+                        .param("after", "5")
+                        .param("limit", "1"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].eventId").value(6))
+                .andExpect(jsonPath("$[0].eventType").value("LIKE"));
+    }
+
+    @Test
+    void handleReturnEvents_withoutParams_streamWholeHistory() throws Exception {
+        given(userService.getEvents(user.getId(), 0, Integer.MAX_VALUE)).willReturn(Stream::empty);
+
+        MvcResult result = mvc.perform(get("/users/{id}/feed", user.getId()))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(0)));
+        verify(userService).getEvents(user.getId(), 0, Integer.MAX_VALUE);
+    }
+
+    @Test
+    void givenEventWriterStats_whenGetFeedStats_thenReturnQueueDepthAndBackpressure() throws Exception {
+        given(userService.getEventStats()).willReturn(new EventStorage.Stats(3, 10000, 120, 4, 1, 2));
+
+        mvc.perform(get("/users/feed/stats"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.queued").value(3))
+                .andExpect(jsonPath("$.capacity").value(10000))
+                .andExpect(jsonPath("$.failed").value(1))
+                .andExpect(jsonPath("$.backpressured").value(2));
+    }
+
     static void setUsersForDefaults() {
         user.setId(random.nextInt(32) + 1);
         user.setEmail("ivan2000@yandex.ru");
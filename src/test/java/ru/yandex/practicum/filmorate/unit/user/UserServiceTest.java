@@ -6,21 +6,31 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import static org.mockito.BDDMockito.given;
 import static org.assertj.core.api.Assertions.assertThat;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import ru.yandex.practicum.filmorate.exception.DataUpdateException;
 import ru.yandex.practicum.filmorate.exception.UserNotFoundException;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.model.Event;
 import ru.yandex.practicum.filmorate.model.Friendship;
+import ru.yandex.practicum.filmorate.model.FriendshipStatus;
 import ru.yandex.practicum.filmorate.model.User;
 import ru.yandex.practicum.filmorate.storage.UserStorage;
 import ru.yandex.practicum.filmorate.service.impl.UserServiceImpl;
 import ru.yandex.practicum.filmorate.storage.dao.EventStorage;
 import ru.yandex.practicum.filmorate.storage.dao.FriendStorage;
+import ru.yandex.practicum.filmorate.storage.index.FriendGraph;
+import ru.yandex.practicum.filmorate.storage.index.FriendsTimelineCache;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.Mockito.*;
 
 import java.time.LocalDate;
 import java.util.*;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 
 @ExtendWith(MockitoExtension.class)
 class UserServiceTest {
@@ -35,6 +45,10 @@ class UserServiceTest {
     FriendStorage friendStorage;
     @Mock
     EventStorage eventStorage;
+    @Mock
+    FriendsTimelineCache timelines;
+    @Spy
+    FriendGraph friendGraph = new FriendGraph(null, 50, 100, 100000, 100000);
     @InjectMocks
     UserServiceImpl userService;
 
@@ -131,24 +145,65 @@ class UserServiceTest {
     void givenUserIdAndFriendId_whenAddFriend_thenAddFriendIdIntoSetIdAndReturnFriend() {
         user.setId(1);
         friend.setId(2);
-        given(userStorage.existsById(user.getId())).willReturn(Boolean.TRUE);
-        given(userStorage.existsById(friend.getId())).willReturn(Boolean.TRUE);
-        given(friendStorage.isExist(any(Friendship.class))).willReturn(Boolean.TRUE);
+        given(friendStorage.sendRequest(new Friendship(user.getId(), friend.getId())))
+                .willReturn(Optional.of(FriendshipStatus.PENDING));
         given(userStorage.findById(friend.getId())).willReturn(Optional.of(friend));
 
         final User returned = userService.addFriend(user.getId(), friend.getId());
 
-        verify(userStorage).existsById(user.getId());
-        verify(userStorage).existsById(friend.getId());
-        verify(friendStorage).isExist(new Friendship(user.getId(), friend.getId()));
+        verify(friendStorage).sendRequest(new Friendship(user.getId(), friend.getId()));
         verify(userStorage).findById(friend.getId());
+        verify(userStorage, never()).existsById(anyLong());
+        verify(friendStorage, never()).isExist(any(Friendship.class));
+        verify(eventStorage).save(any(Event.class));
+        assertThat(friendGraph.findFriends(user.getId())).containsExactly(friend.getId());
+        assertThat(friendGraph.findFriends(friend.getId())).isEmpty();
         assertThat(returned).isNotNull();
         assertThat(returned).isEqualTo(friend);
     }
 
+    @Test
+    void givenConfirmedFriendship_whenAddFriend_thenThrowDataUpdateExceptionWithoutEvent() {
+        user.setId(1);
+        friend.setId(2);
+        given(friendStorage.sendRequest(any(Friendship.class))).willReturn(Optional.empty());
+        given(friendStorage.isConfirmed(new Friendship(user.getId(), friend.getId()))).willReturn(true);
+
+        final Throwable exception = assertThrows(DataUpdateException.class, () ->
+                userService.addFriend(user.getId(), friend.getId()));
+
+        assertThat(exception.getMessage()).isEqualTo("Пользователи уже являются друзьями");
+        verifyNoInteractions(eventStorage);
+    }
+
+    @Test
+    void givenRequestAlreadySent_whenAddFriendAgain_thenThrowDataUpdateExceptionWithoutEvent() {
+        user.setId(1);
+        friend.setId(2);
+        given(friendStorage.sendRequest(any(Friendship.class))).willReturn(Optional.empty());
+        given(friendStorage.isConfirmed(new Friendship(user.getId(), friend.getId()))).willReturn(false);
+
+        final Throwable exception = assertThrows(DataUpdateException.class, () ->
+                userService.addFriend(user.getId(), friend.getId()));
+
+        assertThat(exception.getMessage()).isEqualTo("Запрос на дружбу уже отправлен");
+        assertThat(friendGraph.findFriends(user.getId())).isEmpty();
+        verifyNoInteractions(eventStorage);
+    }
+
+    @Test
+    void givenSameUserId_whenAddFriend_thenThrowValidationException() {
+        assertThrows(ValidationException.class, () -> userService.addFriend(1, 1));
+
+        verifyNoInteractions(friendStorage, eventStorage);
+    }
+
     @Test
     void givenUserNotPresentIdAndFriendId_whenAddFriend_thenThrowNotFoundExceptionNotAddedToFriends() {
         user.setId(1);
+        friend.setId(2);
+        given(friendStorage.sendRequest(any(Friendship.class)))
+                .willThrow(new DataIntegrityViolationException("friendships_fk"));
         given(userStorage.existsById(user.getId())).willReturn(Boolean.FALSE);
 
         final Throwable exception = assertThrows(UserNotFoundException.class, () ->
@@ -167,6 +222,8 @@ class UserServiceTest {
     void givenUserIdAndFriendNotPresentId_whenAddFriend_thenThrowNotFoundExceptionNotAddedToFriends() {
         user.setId(1);
         friend.setId(2);
+        given(friendStorage.sendRequest(any(Friendship.class)))
+                .willThrow(new DataIntegrityViolationException("friendships_fk"));
         given(userStorage.existsById(user.getId())).willReturn(Boolean.TRUE);
         given(userStorage.existsById(friend.getId())).willReturn(Boolean.FALSE);
 
@@ -190,6 +247,7 @@ class UserServiceTest {
         given(userStorage.existsById(friend.getId())).willReturn(Boolean.TRUE);
         given(friendStorage.isExist(any(Friendship.class))).willReturn(Boolean.TRUE);
         given(userStorage.findById(anyLong())).willReturn(Optional.of(friend));
+        friendGraph.addFriend(user.getId(), friend.getId(), FriendshipStatus.CONFIRMED);
 
         final User returned = userService.deleteFriendById(user.getId(), friend.getId());
 
@@ -197,6 +255,8 @@ class UserServiceTest {
         verify(userStorage).existsById(friend.getId());
         verify(friendStorage).isExist(new Friendship(user.getId(), friend.getId()));
         verify(userStorage).findById(friend.getId());
+        assertThat(friendGraph.findFriends(user.getId())).isEmpty();
+        assertThat(friendGraph.findFriends(friend.getId())).isEmpty();
         assertThat(returned).isNotNull();
         assertThat(returned).isEqualTo(friend);
         assertThat(user.getFriends().size()).isEqualTo(0);
@@ -299,22 +359,72 @@ class UserServiceTest {
         friend.setId(2);
         given(userStorage.existsById(user.getId())).willReturn(Boolean.TRUE);
         given(userStorage.existsById(friend.getId())).willReturn(Boolean.TRUE);
-        given(friendStorage.findFriendsIdByUserId(user.getId())).willReturn(List.of(mutualFriend.getId()));
-        given(friendStorage.findFriendsIdByUserId(friend.getId())).willReturn(List.of(mutualFriend.getId()));
+        friendGraph.addFriend(user.getId(), mutualFriend.getId(), FriendshipStatus.CONFIRMED);
+        friendGraph.addFriend(mutualFriend.getId(), friend.getId(), FriendshipStatus.CONFIRMED);
+        friendGraph.addFriend(user.getId(), 4, FriendshipStatus.CONFIRMED);
         given(userStorage.findAllById(anyCollection())).willReturn(List.of(mutualFriend));
 
         final List<User> mutualFriendList = userService.getMutualFriends(user.getId(), friend.getId());
 
         verify(userStorage).existsById(user.getId());
         verify(userStorage).existsById(friend.getId());
-        verify(friendStorage).findFriendsIdByUserId(user.getId());
-        verify(friendStorage).findFriendsIdByUserId(friend.getId());
+        verify(friendGraph).findMutualFriends(user.getId(), friend.getId());
+        verifyNoInteractions(friendStorage);
         verify(userStorage).findAllById(List.of(mutualFriend.getId()));
         assertThat(mutualFriendList).isNotNull();
         assertThat(mutualFriendList.size()).isEqualTo(1);
         assertThat(mutualFriendList).isEqualTo(List.of(mutualFriend));
     }
 
+    @Test
+    void givenFriendsOfFriends_whenGetFriendSuggestions_thenReturnUsersByMutualFriendCount() {
+        User suggested = User.builder().id(5).email("dima07@mailbox.org").name("Dmitry")
+                .login("DmitryDima").birthday(LocalDate.of(1980, 9, 26)).build();
+        user.setId(1);
+        friend.setId(2);
+        friendGraph.addFriend(user.getId(), 3, FriendshipStatus.CONFIRMED);
+        friendGraph.addFriend(user.getId(), 4, FriendshipStatus.CONFIRMED);
+        friendGraph.addFriend(3, friend.getId(), FriendshipStatus.CONFIRMED);
+        friendGraph.addFriend(3, suggested.getId(), FriendshipStatus.CONFIRMED);
+        friendGraph.addFriend(4, suggested.getId(), FriendshipStatus.CONFIRMED);
+        given(userStorage.existsById(user.getId())).willReturn(Boolean.TRUE);
+        given(userStorage.findAllById(anyCollection())).willReturn(List.of(friend, suggested));
+
+        final List<User> suggestions = userService.getFriendSuggestions(user.getId(), 10);
+
+        verify(userStorage).findAllById(List.of(suggested.getId(), friend.getId()));
+        verifyNoInteractions(friendStorage);
+        assertThat(suggestions).containsExactly(suggested, friend);
+    }
+
+    @Test
+    void givenFriendChain_whenGetFriendPath_thenReturnUsersAlongChain() {
+        User middle = User.builder().id(3).email("dima07@mailbox.org").name("Dmitry")
+                .login("DmitryDima").birthday(LocalDate.of(1980, 9, 26)).build();
+        user.setId(1);
+        friend.setId(2);
+        friendGraph.addFriend(user.getId(), middle.getId(), FriendshipStatus.CONFIRMED);
+        friendGraph.addFriend(middle.getId(), friend.getId(), FriendshipStatus.CONFIRMED);
+        given(userStorage.existsById(anyLong())).willReturn(Boolean.TRUE);
+        given(userStorage.findAllById(anyCollection())).willReturn(List.of(friend, user, middle));
+
+        final List<User> path = userService.getFriendPath(user.getId(), friend.getId(), 6);
+
+        verify(userStorage).findAllById(List.of(user.getId(), middle.getId(), friend.getId()));
+        verifyNoInteractions(friendStorage);
+        assertThat(path).containsExactly(user, middle, friend);
+    }
+
+    @Test
+    void givenNonPositiveDepth_whenGetFriendPath_thenThrowValidationException() {
+        given(userStorage.existsById(anyLong())).willReturn(Boolean.TRUE);
+
+        assertThrows(ValidationException.class, () -> userService.getFriendPath(1, 2, 0));
+        assertThrows(ValidationException.class, () -> userService.getFriendPath(1, 2, 21));
+
+        verify(userStorage, never()).findAllById(anyCollection());
+    }
+
     @Test
     void givenUserNotPresentIdAndFriendId_whenGetMutualFriends_thenThrowUserNotFoundException() {
         given(userStorage.existsById(anyLong())).willReturn(Boolean.FALSE);
@@ -349,6 +459,69 @@ class UserServiceTest {
         assertThat(exception.getMessage()).isEqualTo(String.format("Пользователь с id=%d не найден", friend.getId()));
     }
 
+    @Test
+    void givenValidPage_whenGetEvents_thenStreamOpenedOnlyWhenRequested() {
+        final Event event = Event.builder().eventId(6).userId(user.getId()).build();
+        given(userStorage.existsById(user.getId())).willReturn(true);
+        given(eventStorage.streamByUserId(user.getId(), 5, 1)).willReturn(Stream.of(event));
+
+        final Supplier<Stream<Event>> page = userService.getEvents(user.getId(), 5, 1);
+
+        verifyNoInteractions(eventStorage);
+        assertThat(page.get()).containsExactly(event);
+    }
+
+    @Test
+    void givenNonPositiveLimit_whenGetEvents_thenThrowValidationException() {
+        given(userStorage.existsById(user.getId())).willReturn(true);
+
+        assertThrows(ValidationException.class, () -> userService.getEvents(user.getId(), 0, 0));
+
+        verifyNoInteractions(eventStorage);
+    }
+
+    @Test
+    void givenWarmTimeline_whenGetFriendsEvents_thenServedFromCache() {
+        final List<Event> page = List.of(Event.builder().eventId(3).userId(friend.getId()).build());
+        given(userStorage.existsById(user.getId())).willReturn(true);
+        given(timelines.getCapacity()).willReturn(200);
+        given(timelines.findPage(user.getId(), Long.MAX_VALUE, 1)).willReturn(Optional.of(page));
+
+        final List<Event> events = userService.getFriendsEvents(user.getId(), Long.MAX_VALUE, 1);
+
+        assertThat(events).isEqualTo(page);
+        verifyNoInteractions(friendStorage, eventStorage);
+    }
+
+    @Test
+    void givenLimitAboveTimelineCapacity_whenGetFriendsEvents_thenThrowValidationException() {
+        given(userStorage.existsById(user.getId())).willReturn(true);
+        given(timelines.getCapacity()).willReturn(200);
+
+        assertThrows(ValidationException.class, () ->
+                userService.getFriendsEvents(user.getId(), Long.MAX_VALUE, 2_000_000_000));
+
+        verify(timelines, never()).findPage(anyLong(), anyLong(), anyInt());
+        verifyNoInteractions(friendStorage, eventStorage);
+    }
+
+    @Test
+    void givenColdTimeline_whenGetFriendsEvents_thenWarmedFromMergedFriendsEvents() {
+        final List<Event> latest = List.of(Event.builder().eventId(3).userId(friend.getId()).build());
+        given(userStorage.existsById(user.getId())).willReturn(true);
+        given(timelines.findPage(user.getId(), Long.MAX_VALUE, 1))
+                .willReturn(Optional.empty(), Optional.of(latest));
+        given(friendStorage.findFriendsIdByUserId(user.getId())).willReturn(List.of(friend.getId()));
+        given(timelines.getCapacity()).willReturn(200);
+        given(eventStorage.findLatestByUserIds(List.of(friend.getId()), Long.MAX_VALUE, 200)).willReturn(latest);
+
+        final List<Event> events = userService.getFriendsEvents(user.getId(), Long.MAX_VALUE, 1);
+
+        assertThat(events).isEqualTo(latest);
+        verify(timelines).register(user.getId(), List.of(friend.getId()));
+        verify(timelines).fill(user.getId(), latest);
+    }
+
      static void setUsersForDefaults() {
         user.setId(0);
         user.setEmail("ivan2000@yandex.ru");